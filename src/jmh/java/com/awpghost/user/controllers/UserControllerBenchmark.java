@@ -0,0 +1,46 @@
+package com.awpghost.user.controllers;
+
+import com.awpghost.user.dto.responses.UserResponseDto;
+import com.awpghost.user.persistence.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserControllerBenchmark {
+
+    private final UserController userController = new UserController(null);
+
+    private final User user = User.builder()
+            .id("1234567")
+            .arangoId("user/1234567")
+            .firstName("Ghost")
+            .lastName("User")
+            .email("ghost.user@example.com")
+            .location("MY-14")
+            .mobileNo("+60123456789")
+            .address1("1 Jalan Ampang")
+            .address2("Level 10")
+            .city("Kuala Lumpur")
+            .state("Wilayah Persekutuan")
+            .zip("50450")
+            .build();
+
+    @Benchmark
+    public UserResponseDto mapUserToUserResponseDto() {
+        return userController.mapUserToUserResponseDto(user);
+    }
+}
@@ -0,0 +1,152 @@
+package com.awpghost.user.services;
+
+import com.awpghost.user.configurations.resilience.ResilienceProperties;
+import com.awpghost.user.configurations.verification.EmailVerificationProperties;
+import com.awpghost.user.dto.requests.SendEmailRequest;
+import com.awpghost.user.dto.requests.SendMobileNumberSMSRequest;
+import com.awpghost.user.enums.BlockingExecutionMode;
+import com.awpghost.user.enums.VerificationMethod;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.persistence.models.User;
+import com.awpghost.user.persistence.repositories.InMemoryReactiveUserRepository;
+import com.awpghost.user.services.cache.UserCache;
+import com.awpghost.user.services.cache.UserLookupCoalescer;
+import com.awpghost.user.services.execution.BlockingExecutor;
+import com.awpghost.user.services.metrics.UserServiceMetrics;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.awpghost.user.services.tokens.SecureRandomOtpGenerator;
+import com.awpghost.user.services.tokens.SecureRandomTokenGenerator;
+import com.awpghost.user.services.tokens.TokenGenerator;
+import com.awpghost.user.services.verification.InMemoryVerificationTokenStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service hot paths against in-memory stand-ins for ArangoDB and Redis. The user cache is disabled, so Redis and Kafka
+ * clients are created but never connected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final Duration TOKEN_EXPIRATION = Duration.ofDays(1);
+
+    private UserServiceImpl userService;
+
+    private InMemoryVerificationTokenStore verificationTokenStore;
+
+    private TokenGenerator tokenGenerator;
+
+    private User user;
+
+    private Authentication authentication;
+
+    private SendEmailRequest sendEmailRequest;
+
+    private SendMobileNumberSMSRequest sendMobileNumberSMSRequest;
+
+    @Setup
+    public void setUp() {
+        InMemoryReactiveUserRepository userRepository = new InMemoryReactiveUserRepository();
+        ObjectMapper objectMapper = new ObjectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BlockingExecutor blockingExecutor = new BlockingExecutor(meterRegistry, BlockingExecutionMode.BOUNDED_ELASTIC, 0, 0);
+        BackendGuard backendGuard = new BackendGuard(new ResilienceProperties(), meterRegistry);
+
+        UserCache userCache = new UserCache(userRepository,
+                new ReactiveStringRedisTemplate(new LettuceConnectionFactory()),
+                new KafkaTemplate<>(new DefaultKafkaProducerFactory<String, String>(Map.of())),
+                blockingExecutor,
+                backendGuard,
+                objectMapper,
+                meterRegistry,
+                false, 0, Duration.ZERO, Duration.ZERO);
+
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("java.rmi.server.hostname", "localhost", "local.server.port", "8080")));
+
+        verificationTokenStore = new InMemoryVerificationTokenStore();
+        tokenGenerator = new SecureRandomTokenGenerator(16);
+        userService = new UserServiceImpl(userRepository, userCache, new UserLookupCoalescer(meterRegistry), null, null, verificationTokenStore, null, new EmailVerificationProperties(),
+                new SecureRandomOtpGenerator(6), tokenGenerator, TOKEN_EXPIRATION.toMillis(),
+                null, blockingExecutor, backendGuard, new UserServiceMetrics(meterRegistry), objectMapper, environment, null, 500, 1000, 1000, Duration.ofSeconds(30), 50, 1000, Duration.ofMillis(300));
+
+        user = userRepository.save(User.builder()
+                        .firstName("Ghost")
+                        .lastName("User")
+                        .email("ghost.user@example.com")
+                        .mobileNo("+60123456789")
+                        .build())
+                .block();
+
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername(user.getId())
+                .password("{noop}benchmark")
+                .roles("USER")
+                .build();
+        authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+
+        sendEmailRequest = SendEmailRequest.builder()
+                .receiverList(List.of(user.getEmail()))
+                .emailSubject("Verify your email")
+                .emailContent("Click the link to verify your email: " + userService.generateLink("email", tokenGenerator.generate()))
+                .build();
+        sendMobileNumberSMSRequest = SendMobileNumberSMSRequest.builder()
+                .mobileNo(user.getMobileNo())
+                .content("Your OTP is 012345. Please use this within 1440 minutes. ")
+                .build();
+    }
+
+    @Benchmark
+    public String convertSendEmailRequest() {
+        return userService.convertMonoObjectToString(sendEmailRequest).block();
+    }
+
+    @Benchmark
+    public String convertSendMobileNumberSMSRequest() {
+        return userService.convertMonoObjectToString(sendMobileNumberSMSRequest).block();
+    }
+
+    @Benchmark
+    public String generateLink() {
+        return userService.generateLink("email", "Q2hhbmdlTWVQbGVhc2UxMjM");
+    }
+
+    @Benchmark
+    public Boolean storeAndVerifyEmailToken() {
+        String token = tokenGenerator.generate();
+        return verificationTokenStore.store(user.getId(), VerificationType.EMAIL, VerificationMethod.TOKEN, token, TOKEN_EXPIRATION)
+                .then(userService.verifyEmail(token, VerificationMethod.TOKEN))
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                .block();
+    }
+}
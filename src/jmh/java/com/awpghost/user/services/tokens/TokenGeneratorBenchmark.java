@@ -0,0 +1,84 @@
+package com.awpghost.user.services.tokens;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the OTP and token generators with the code they replaced, on one thread and on all available threads.
+ * <p>
+ * Scaling: the all-threads throughput of the generators should grow with the core count, the UUID baseline
+ * flattens out because every call goes through the shared SecureRandom.
+ * Allocation: run with the gc profiler (configured in build.gradle) and compare gc.alloc.rate.norm per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenGeneratorBenchmark {
+
+    private final OtpGenerator otpGenerator = new SecureRandomOtpGenerator(6);
+
+    private final TokenGenerator tokenGenerator = new SecureRandomTokenGenerator(16);
+
+    @Benchmark
+    @Threads(1)
+    public String otpSingleThread() {
+        return otpGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String otpAllThreads() {
+        return otpGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String tokenSingleThread() {
+        return tokenGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String tokenAllThreads() {
+        return tokenGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String legacyOtpSingleThread() {
+        return String.valueOf(new Random().nextInt((int) (Math.pow(10, 6))));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String legacyOtpAllThreads() {
+        return String.valueOf(new Random().nextInt((int) (Math.pow(10, 6))));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String uuidSingleThread() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String uuidAllThreads() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.awpghost.user.services.verification;
+
+import com.awpghost.user.enums.VerificationMethod;
+import com.awpghost.user.enums.VerificationResult;
+import com.awpghost.user.enums.VerificationType;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in for the Redis backed token store, with the same consume-on-match semantics. Attempts are not counted.
+ */
+public class InMemoryVerificationTokenStore implements VerificationTokenStore {
+    private final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> store(String userId, VerificationType verificationType, VerificationMethod verificationMethod, String token, Duration timeToLive) {
+        return Mono.fromRunnable(() -> tokens.put(key(userId, verificationType, verificationMethod), token));
+    }
+
+    @Override
+    public Mono<VerificationResult> consume(String userId, VerificationType verificationType, VerificationMethod verificationMethod, String token) {
+        return Mono.fromCallable(() -> {
+            String key = key(userId, verificationType, verificationMethod);
+            String storedToken = tokens.get(key);
+            if (storedToken == null) {
+                return VerificationResult.NOT_FOUND;
+            }
+            if (storedToken.equals(token) && tokens.remove(key, token)) {
+                return VerificationResult.VERIFIED;
+            }
+            return VerificationResult.MISMATCH;
+        });
+    }
+
+    private static String key(String userId, VerificationType verificationType, VerificationMethod verificationMethod) {
+        return verificationType + ":" + verificationMethod + ":" + userId;
+    }
+}
@@ -0,0 +1,52 @@
+package com.awpghost.user.configurations.arango;
+
+import com.arangodb.async.ArangoDBAsync;
+import com.arangodb.async.ArangoDatabaseAsync;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class ArangoAsyncConfigurations {
+
+    @Value("${arangodb.spring.data.hosts:localhost:8529}")
+    private List<String> hosts;
+
+    @Value("${arangodb.spring.data.user:root}")
+    private String user;
+
+    @Value("${arangodb.spring.data.password:}")
+    private String password;
+
+    @Value("${arangodb.spring.data.database:_system}")
+    private String database;
+
+    @Value("${arangodb.async.max-connections:8}")
+    private Integer maxConnections;
+
+    @Value("${arangodb.async.timeout:10000}")
+    private Integer timeout;
+
+    @Bean(destroyMethod = "shutdown")
+    public ArangoDBAsync arangoDBAsync() {
+        ArangoDBAsync.Builder builder = new ArangoDBAsync.Builder()
+                .user(user)
+                .password(password)
+                .maxConnections(maxConnections)
+                .timeout(timeout);
+
+        hosts.forEach(host -> {
+            String[] hostAndPort = host.split(":");
+            builder.host(hostAndPort[0], Integer.parseInt(hostAndPort[1]));
+        });
+
+        return builder.build();
+    }
+
+    @Bean
+    public ArangoDatabaseAsync arangoDatabaseAsync(ArangoDBAsync arangoDBAsync) {
+        return arangoDBAsync.db(database);
+    }
+}
@@ -1,17 +1,26 @@
 package com.awpghost.user.configurations.kafka;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @EnableKafka
 @Configuration
@@ -19,11 +28,36 @@ public class KafkaConsumerConfigurations {
 
     private final String bootstrapAddress;
 
+    private final Integer BATCH_CONCURRENCY;
+
+    private final Integer BATCH_MAX_POLL_RECORDS;
+
+    private final Integer BATCH_FETCH_MIN_BYTES;
+
+    private final Duration BATCH_FETCH_MAX_WAIT;
+
+    private final Duration RETRY_INTERVAL;
+
+    private final Long RETRY_ATTEMPTS;
+
     @Autowired
-    KafkaConsumerConfigurations(@Value(value = "${spring.kafka.bootstrap-servers}") String bootstrapAddress) {
+    KafkaConsumerConfigurations(@Value(value = "${spring.kafka.bootstrap-servers}") String bootstrapAddress,
+                                @Value("${kafka.consumer.batch.concurrency:3}") Integer BATCH_CONCURRENCY,
+                                @Value("${kafka.consumer.batch.max-poll-records:500}") Integer BATCH_MAX_POLL_RECORDS,
+                                @Value("${kafka.consumer.batch.fetch-min-bytes:65536}") Integer BATCH_FETCH_MIN_BYTES,
+                                @Value("${kafka.consumer.batch.fetch-max-wait:200ms}") Duration BATCH_FETCH_MAX_WAIT,
+                                @Value("${kafka.consumer.retry.interval:1s}") Duration RETRY_INTERVAL,
+                                @Value("${kafka.consumer.retry.attempts:2}") Long RETRY_ATTEMPTS) {
         this.bootstrapAddress = bootstrapAddress;
+        this.BATCH_CONCURRENCY = BATCH_CONCURRENCY;
+        this.BATCH_MAX_POLL_RECORDS = BATCH_MAX_POLL_RECORDS;
+        this.BATCH_FETCH_MIN_BYTES = BATCH_FETCH_MIN_BYTES;
+        this.BATCH_FETCH_MAX_WAIT = BATCH_FETCH_MAX_WAIT;
+        this.RETRY_INTERVAL = RETRY_INTERVAL;
+        this.RETRY_ATTEMPTS = RETRY_ATTEMPTS;
     }
 
+    @Bean
     public ConsumerFactory<String, String> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
@@ -31,12 +65,45 @@ public class KafkaConsumerConfigurations {
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, "20971520");
         props.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, "20971520");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    /**
+     * Record listeners, used by low volume, latency sensitive topics such as cache invalidations.
+     */
+    @Bean
     public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         return factory;
     }
+
+    /**
+     * Batch listeners for high volume topics. New consumer groups start from the earliest offset, so no receipt is
+     * skipped on first deployment. Fetches wait for a minimum amount of data, and offsets are committed once
+     * per poll after the whole batch is processed. Failed records are retried, then published to {@code <topic>.DLT}.
+     * Unreadable records are not retried.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory(KafkaTemplate<String, String> kafkaTemplate) {
+        Properties batchConsumerProperties = new Properties();
+        batchConsumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        batchConsumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(BATCH_MAX_POLL_RECORDS));
+        batchConsumerProperties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(BATCH_FETCH_MIN_BYTES));
+        batchConsumerProperties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(BATCH_FETCH_MAX_WAIT.toMillis()));
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate),
+                new FixedBackOff(RETRY_INTERVAL.toMillis(), RETRY_ATTEMPTS));
+        errorHandler.addNotRetryableExceptions(JsonProcessingException.class, IllegalArgumentException.class);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(BATCH_CONCURRENCY);
+        factory.setCommonErrorHandler(errorHandler);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setKafkaConsumerProperties(batchConsumerProperties);
+        return factory;
+    }
 }
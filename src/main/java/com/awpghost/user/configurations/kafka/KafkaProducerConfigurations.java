@@ -1,10 +1,15 @@
 package com.awpghost.user.configurations.kafka;
 
+import com.awpghost.user.services.cache.UserCache;
+import com.awpghost.user.services.cache.UserCacheInvalidationListener;
+import com.awpghost.user.services.view.UserChangePublisher;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -33,4 +38,30 @@ public class KafkaProducerConfigurations {
     public KafkaTemplate<String, String> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    /**
+     * Compacted, so the topic keeps the latest state of every user and the user view can be rebuilt from it.
+     */
+    @Bean
+    public NewTopic userChangesTopic(@Value("${user.view.topic.partitions:6}") int partitions,
+                                     @Value("${user.view.topic.replicas:1}") short replicas) {
+        return TopicBuilder.name(UserChangePublisher.TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Every instance reads all partitions, see {@link UserCacheInvalidationListener}, so the partition count must match
+     * {@code user.cache.invalidation.partitions}.
+     */
+    @Bean
+    public NewTopic userCacheInvalidationTopic(@Value("${user.cache.invalidation.partitions:1}") int partitions,
+                                               @Value("${user.cache.invalidation.replicas:1}") short replicas) {
+        return TopicBuilder.name(UserCache.INVALIDATION_TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
 }
@@ -0,0 +1,68 @@
+package com.awpghost.user.configurations.kafka;
+
+import com.awpghost.user.services.view.UserChangePublisher;
+import com.awpghost.user.services.view.UserView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+
+import java.util.Objects;
+
+/**
+ * Materializes {@value UserChangePublisher#TOPIC} into the stores of {@link UserView}: users by id, and re-keyed copies
+ * by email and by mobile number. The secondary stores are aggregates of the table by id. When a user's email or mobile
+ * number changes, the entry under the old key is removed.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(value = "user.view.enabled", havingValue = "true")
+public class KafkaStreamsConfigurations {
+
+    @Bean
+    public KTable<String, String> usersById(StreamsBuilder streamsBuilder, ObjectMapper objectMapper) {
+        KTable<String, String> usersById = streamsBuilder.table(UserChangePublisher.TOPIC,
+                Consumed.with(Serdes.String(), Serdes.String()),
+                Materialized.<String, String, KeyValueStore<Bytes, byte[]>>as(UserView.USERS_BY_ID)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(Serdes.String()));
+
+        materializeBy(usersById, "email", UserView.USERS_BY_EMAIL, objectMapper);
+        materializeBy(usersById, "mobileNo", UserView.USERS_BY_MOBILE_NO, objectMapper);
+        return usersById;
+    }
+
+    private static void materializeBy(KTable<String, String> usersById, String attribute, String storeName, ObjectMapper objectMapper) {
+        usersById.filter((id, user) -> attribute(objectMapper, user, attribute) != null)
+                .groupBy((id, user) -> KeyValue.pair(attribute(objectMapper, user, attribute), user),
+                        Grouped.with(storeName, Serdes.String(), Serdes.String()))
+                .reduce((current, added) -> added,
+                        // Only drop the entry if it still belongs to the user that moved away from this key
+                        (current, removed) -> Objects.equals(attribute(objectMapper, current, "id"), attribute(objectMapper, removed, "id")) ? null : current,
+                        Materialized.<String, String, KeyValueStore<Bytes, byte[]>>as(storeName)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(Serdes.String()));
+    }
+
+    private static String attribute(ObjectMapper objectMapper, String user, String attribute) {
+        if (user == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(user).path(attribute).asText(null);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
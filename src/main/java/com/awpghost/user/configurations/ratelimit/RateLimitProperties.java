@@ -0,0 +1,52 @@
+package com.awpghost.user.configurations.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+    /**
+     * Whether OTP and verification link generation is rate limited.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Limit per user id.
+     */
+    private Limit user = new Limit(5, Duration.ofMinutes(15));
+
+    /**
+     * Limit per mobile number or email address.
+     */
+    private Limit recipient = new Limit(5, Duration.ofMinutes(15));
+
+    /**
+     * Limit across all users, per operation.
+     */
+    private Limit global = new Limit(500, Duration.ofSeconds(1));
+
+    /**
+     * Maximum number of rejected keys remembered locally, so repeated requests are rejected without calling Redis.
+     */
+    private long localMaximumSize = 100000;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        /**
+         * Number of requests allowed in a burst.
+         */
+        private long capacity;
+
+        /**
+         * Time to refill the whole capacity.
+         */
+        private Duration period;
+    }
+}
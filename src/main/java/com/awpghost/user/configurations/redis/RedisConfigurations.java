@@ -1,51 +1,33 @@
 package com.awpghost.user.configurations.redis;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.TimeoutOptions;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.connection.ReactiveKeyCommands;
-import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
-import org.springframework.data.redis.connection.ReactiveStringCommands;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.RedisSerializationContext;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
-
-import javax.annotation.PreDestroy;
 
+/**
+ * All Redis access goes through the single auto-configured {@link org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory}.
+ * Commands of the templates and the session repository are multiplexed over one shared native connection. Pub/sub gets
+ * its own connection, and blocking commands or transactions borrow from a pool when
+ * {@code spring.redis.lettuce.pool.enabled} is set. Values are plain UTF-8 strings through Boot's
+ * {@link org.springframework.data.redis.core.ReactiveStringRedisTemplate}.
+ */
 @Configuration
 @EnableRedisRepositories
 public class RedisConfigurations {
 
-    @Autowired
-    RedisConnectionFactory factory;
-
-    @Bean
-    public ReactiveRedisTemplate<String, String> reactiveRedisTemplate(ReactiveRedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<String> serializer = new Jackson2JsonRedisSerializer<>(String.class);
-        RedisSerializationContext.RedisSerializationContextBuilder<String, String> builder = RedisSerializationContext.newSerializationContext(new StringRedisSerializer());
-        RedisSerializationContext<String, String> context = builder.value(serializer)
-                .build();
-        return new ReactiveRedisTemplate<>(factory, context);
-    }
-
+    /**
+     * Commands time out instead of queueing forever, and are rejected right away while disconnected, so callers fall
+     * back quickly instead of piling up behind a dead connection.
+     */
     @Bean
-    public ReactiveKeyCommands keyCommands(final ReactiveRedisConnectionFactory reactiveRedisConnectionFactory) {
-        return reactiveRedisConnectionFactory.getReactiveConnection()
-                .keyCommands();
-    }
-
-    @Bean
-    public ReactiveStringCommands stringCommands(final ReactiveRedisConnectionFactory reactiveRedisConnectionFactory) {
-        return reactiveRedisConnectionFactory.getReactiveConnection()
-                .stringCommands();
-    }
-
-    @PreDestroy
-    public void cleanRedis() {
-        factory.getConnection()
-                .flushDb();
+    public LettuceClientConfigurationBuilderCustomizer lettuceClientOptionsCustomizer() {
+        return builder -> builder.clientOptions(ClientOptions.builder()
+                .autoReconnect(true)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .timeoutOptions(TimeoutOptions.enabled())
+                .build());
     }
 }
@@ -0,0 +1,48 @@
+package com.awpghost.user.configurations.redis;
+
+import io.lettuce.core.event.connection.ConnectionActivatedEvent;
+import io.lettuce.core.event.connection.ConnectionDeactivatedEvent;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports the number of open Redis connections as {@code redis.connections}, from Lettuce's event bus. Command latencies
+ * are recorded by Boot's Lettuce metrics as {@code lettuce.command.completion} and {@code lettuce.command.firstresponse}.
+ */
+@Component
+public class RedisConnectionMetrics {
+    private final ClientResources clientResources;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private Disposable subscription;
+
+    @Autowired
+    public RedisConnectionMetrics(ClientResources clientResources, MeterRegistry meterRegistry) {
+        this.clientResources = clientResources;
+        meterRegistry.gauge("redis.connections", connections);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        subscription = clientResources.eventBus().get().subscribe(event -> {
+            if (event instanceof ConnectionActivatedEvent) {
+                connections.incrementAndGet();
+            } else if (event instanceof ConnectionDeactivatedEvent) {
+                connections.decrementAndGet();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        subscription.dispose();
+    }
+}
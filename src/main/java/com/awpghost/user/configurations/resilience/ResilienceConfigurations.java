@@ -0,0 +1,9 @@
+package com.awpghost.user.configurations.resilience;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfigurations {
+}
@@ -0,0 +1,102 @@
+package com.awpghost.user.configurations.resilience;
+
+import com.awpghost.user.enums.BackendDependency;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "resilience")
+public class ResilienceProperties {
+    /**
+     * Whether calls to ArangoDB, Redis and Kafka are limited, timed out and guarded by circuit breakers.
+     */
+    private boolean enabled = true;
+
+    private Backend arangodb = new Backend(Duration.ofSeconds(3), Duration.ofMillis(500), 50, 5, 500);
+
+    private Backend redis = new Backend(Duration.ofSeconds(1), Duration.ofMillis(100), 100, 10, 1000);
+
+    private Backend kafka = new Backend(Duration.ofSeconds(5), Duration.ofSeconds(1), 50, 5, 500);
+
+    public Backend get(BackendDependency backendDependency) {
+        switch (backendDependency) {
+            case ARANGODB:
+                return arangodb;
+            case REDIS:
+                return redis;
+            default:
+                return kafka;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Backend {
+        /**
+         * Time after which a call is abandoned and counted as a failure.
+         */
+        private Duration timeout;
+
+        /**
+         * Latency above which a call counts as a sign of overload, shrinking the concurrency limit.
+         */
+        private Duration latencyThreshold;
+
+        /**
+         * Concurrency limit at startup, adjusted from there by additive increase and multiplicative decrease.
+         */
+        private int initialLimit;
+
+        /**
+         * Lowest concurrency limit, so a recovering backend still sees enough calls to prove it.
+         */
+        private int minLimit;
+
+        /**
+         * Highest concurrency limit, the bulkhead size of the backend.
+         */
+        private int maxLimit;
+
+        /**
+         * Concurrency limit of bulk calls (bulk inserts, batch lookups, export pages), held apart from the adaptive limit
+         * so their size dependent latency does not shrink it.
+         */
+        private int bulkLimit = 8;
+
+        /**
+         * Time after which a bulk call is abandoned and counted as a failure.
+         */
+        private Duration bulkTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Factor applied to the limit on every overloaded call.
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * Percentage of failed calls, timeouts included, in the sliding window that opens the circuit.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Number of recent calls the failure rate is computed over.
+         */
+        private int slidingWindowSize = 100;
+
+        /**
+         * Time the circuit stays open before letting trial calls through.
+         */
+        private Duration openStateDuration = Duration.ofSeconds(10);
+
+        public Backend(Duration timeout, Duration latencyThreshold, int initialLimit, int minLimit, int maxLimit) {
+            this.timeout = timeout;
+            this.latencyThreshold = latencyThreshold;
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
@@ -1,16 +1,41 @@
 package com.awpghost.user.configurations.session;
 
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.awpghost.user.services.session.CachingReactiveSessionRepository;
+import com.awpghost.user.services.session.GuardedReactiveSessionRepository;
+import com.awpghost.user.services.session.SessionCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
-import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
+import org.springframework.session.data.redis.ReactiveRedisSessionRepository;
+import org.springframework.session.data.redis.config.annotation.web.server.EnableRedisWebSession;
 
 @Configuration
-@EnableRedisHttpSession
+@EnableRedisWebSession
 public class SessionConfigurations {
 
+    /**
+     * Guards the Redis session repository with {@link BackendGuard} and puts the local session cache in front of it.
+     * Both are looked up lazily, so this post processor does not force Redis beans to be created early.
+     */
     @Bean
-    public LettuceConnectionFactory connectionFactory() {
-        return new LettuceConnectionFactory();
+    public static BeanPostProcessor cachingSessionRepositoryPostProcessor(ObjectProvider<SessionCache> sessionCache,
+                                                                          ObjectProvider<BackendGuard> backendGuard) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof ReactiveRedisSessionRepository)) {
+                    return bean;
+                }
+
+                GuardedReactiveSessionRepository guarded =
+                        new GuardedReactiveSessionRepository((ReactiveRedisSessionRepository) bean, backendGuard.getObject());
+                if (sessionCache.getObject().isEnabled()) {
+                    return new CachingReactiveSessionRepository(guarded, sessionCache.getObject());
+                }
+                return guarded;
+            }
+        };
     }
 }
@@ -0,0 +1,9 @@
+package com.awpghost.user.configurations.verification;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EmailVerificationProperties.class)
+public class EmailVerificationConfigurations {
+}
@@ -0,0 +1,33 @@
+package com.awpghost.user.configurations.verification;
+
+import com.awpghost.user.enums.EmailVerificationMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "verification.email")
+public class EmailVerificationProperties {
+    /**
+     * Whether email verification tokens are stored in Redis or are signed and verified without any lookup.
+     */
+    private EmailVerificationMode mode = EmailVerificationMode.STORED;
+
+    /**
+     * Id of the key new signed tokens are signed with.
+     */
+    private String activeKeyId;
+
+    /**
+     * Base64 encoded HMAC-SHA256 keys of at least 32 bytes by key id. Tokens signed with any of them are accepted, so
+     * keys are rotated by adding the new key, making it active, and removing the old key once its tokens have expired.
+     */
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    /**
+     * Whether signed tokens are single use, enforced by a Redis denylist entry that lives until the token expires.
+     */
+    private boolean singleUse = true;
+}
@@ -0,0 +1,22 @@
+package com.awpghost.user.configurations.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.LoopResources;
+
+@Configuration
+public class NettyConfigurations {
+
+    /**
+     * Runs the HTTP server on a fixed number of event loop threads. Nothing on the request path may block these threads.
+     */
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> eventLoopCustomizer(
+            @Value("${netty.event-loop-threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int eventLoopThreads) {
+        LoopResources loopResources = LoopResources.create("user-http", eventLoopThreads, true);
+        return factory -> factory.addServerCustomizers(httpServer -> httpServer.runOn(loopResources));
+    }
+}
@@ -0,0 +1,22 @@
+package com.awpghost.user.controllers;
+
+import com.awpghost.user.exceptions.RateLimitExceededException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class RateLimitExceptionHandler {
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<String> handleRateLimitExceeded(RateLimitExceededException rateLimitExceededException) {
+        // Retry-After is in whole seconds, round up so clients never retry too early
+        long retryAfterSeconds = (rateLimitExceededException.getRetryAfter().toMillis() + 999) / 1000;
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)))
+                .body(rateLimitExceededException.getMessage());
+    }
+}
@@ -1,7 +1,13 @@
 package com.awpghost.user.controllers;
 
+import com.awpghost.user.dto.requests.BatchUserLookupDto;
 import com.awpghost.user.dto.requests.UserDto;
+import com.awpghost.user.dto.requests.UserFields;
+import com.awpghost.user.dto.responses.BatchUserLookupResponseDto;
+import com.awpghost.user.dto.responses.BulkRegistrationResultDto;
+import com.awpghost.user.dto.responses.UserLookupResultDto;
 import com.awpghost.user.dto.responses.UserResponseDto;
+import com.awpghost.user.dto.responses.UserSearchResponseDto;
 import com.awpghost.user.enums.VerificationMethod;
 import com.awpghost.user.exceptions.GetUserException;
 import com.awpghost.user.exceptions.TokenVerificationException;
@@ -13,11 +19,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @RequestMapping("/user")
@@ -41,18 +52,62 @@ public class UserController {
         return userService.createUser(userDto).map(this::mapUserToUserResponseDto);
     }
 
+    @Operation(summary = "Create users in bulk from a stream of newline delimited JSON records",
+            description = "Records are validated and inserted in batches. One result per record is streamed back as newline delimited JSON.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+    })
+    @PostMapping(value = "/register/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkRegistrationResultDto> registerUsers(@RequestBody Flux<UserDto> userDtos) {
+        // Records are decoded from the request body on demand, so only the batches in flight are held in memory
+        return userService.createUsers(userDtos);
+    }
+
+    @Operation(summary = "Export all users as newline delimited JSON",
+            description = "Users are streamed in id order. Pass the id of the last user received as 'after' to resume an interrupted export.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponseDto> exportUsers(@RequestParam(name = "after", required = false) final String after) {
+        return userService.exportUsers(after).map(this::mapUserToUserResponseDto);
+    }
+
+    @Operation(summary = "Search users by the start of their name, email, mobile number or city",
+            description = "Every whitespace separated term has to match the start of a word in one of the fields. Results are ranked by relevance.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Too many terms, page size too large or page too deep"),
+            @ApiResponse(responseCode = "503", description = "Search did not complete within its time budget")
+    })
+    @GetMapping("/search")
+    public Mono<UserSearchResponseDto> searchUsers(@RequestParam("q") final String query,
+                                                   @RequestParam(name = "page", defaultValue = "0") final int page,
+                                                   @RequestParam(name = "size", defaultValue = "10") final int size) {
+        return userService.searchUsers(query, page, size)
+                .map(this::mapUserToUserResponseDto)
+                .collectList()
+                .map(users -> UserSearchResponseDto.builder()
+                        .users(users)
+                        .page(page)
+                        .size(size)
+                        // A full page may be followed by an empty one, a short page is always the last
+                        .hasMore(users.size() == size)
+                        .build());
+    }
+
     @Operation(summary = "Verify mobile number with token", description = "Verify mobile number with token")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful mobile number verification"),
     })
     @GetMapping("/verify-mobileNo")
-    public Mono<Boolean> mobileNumberVerification(@RequestParam(name = "token") final String token, @RequestParam(name = "otp") final String otp) {
+    public Mono<Boolean> mobileNumberVerification(@RequestParam(name = "token", required = false) final String token, @RequestParam(name = "otp", required = false) final String otp) {
         if (StringUtils.hasText(token)) {
             log.info("Verify user account mobile number with token: {}", token);
             return userService.verifyMobileNo(token, VerificationMethod.TOKEN);
         } else if (StringUtils.hasText(otp)) {
             log.info("Verify user account mobile number with otp: {}", otp);
-            return userService.verifyMobileNo(token, VerificationMethod.OTP);
+            return userService.verifyMobileNo(otp, VerificationMethod.OTP);
         } else {
             return Mono.error(new TokenVerificationException("No token or otp provided"));
         }
@@ -63,25 +118,30 @@ public class UserController {
             @ApiResponse(responseCode = "200", description = "Successful email address verification"),
     })
     @GetMapping("/verify-email")
-    public Mono<Boolean> emailVerification(@RequestParam(name = "token") final String token, @RequestParam(name = "otp") final String otp) {
+    public Mono<Boolean> emailVerification(@RequestParam(name = "token", required = false) final String token, @RequestParam(name = "otp", required = false) final String otp) {
         if (StringUtils.hasText(token)) {
             log.info("Verify user account email address with token: {}", token);
             return userService.verifyEmail(token, VerificationMethod.TOKEN);
         } else if (StringUtils.hasText(otp)) {
             log.info("Verify user account email address with otp: {}", otp);
-            return userService.verifyEmail(token, VerificationMethod.OTP);
+            return userService.verifyEmail(otp, VerificationMethod.OTP);
         } else {
             return Mono.error(new TokenVerificationException("No token or otp provided"));
         }
     }
 
-    @Operation(summary = "Get a user using Email/Mobile Number")
+    @Operation(summary = "Get a user using Email/Mobile Number",
+            description = "The ETag is derived from the document revision. With a matching If-None-Match the response is 304 without a body.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "304", description = "User not modified"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("")
-    public Mono<UserResponseDto> getUser(@RequestParam("id") String id, @RequestParam("email") String email, @RequestParam("mobileNo") String mobileNo) {
+    public Mono<UserResponseDto> getUser(@RequestParam("id") String id, @RequestParam("email") String email, @RequestParam("mobileNo") String mobileNo,
+                                         @RequestParam(name = "fields", required = false) String fields, ServerWebExchange exchange) {
+        // Single reads are served whole from the user cache, the projection only trims the response
+        UserFields userFields = UserFields.parse(fields);
         Mono<Optional<User>> monoOptionalUser;
 
         if (StringUtils.hasText(id)) {
@@ -94,23 +154,68 @@ public class UserController {
             return Mono.error(new UserNotFoundException("No email provided"));
         }
 
-        return monoOptionalUser.flatMap(user ->
-                user.isEmpty() ? Mono.error(new GetUserException("No param(s) provided")) : Mono.just(mapUserToUserResponseDto(user.get()))
-        );
+        return monoOptionalUser.flatMap(user -> {
+            if (user.isEmpty()) {
+                return Mono.error(new GetUserException("No param(s) provided"));
+            }
+            // The user comes from the view or the cache, so an unchanged user costs neither a query nor serialization
+            String revision = user.get().getRevision();
+            if (revision != null && exchange.checkNotModified("\"" + revision + userFields.tag() + "\"")) {
+                return Mono.empty();
+            }
+            return Mono.just(mapUserToUserResponseDto(user.get(), userFields));
+        });
+    }
+
+    @Operation(summary = "Get users by lists of ids, email addresses and mobile numbers",
+            description = "Each key type is resolved with a single query. Every requested key is returned, missing users are marked as not found.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Too many keys requested")
+    })
+    @PostMapping("/batch")
+    public Mono<BatchUserLookupResponseDto> getUsers(@RequestBody BatchUserLookupDto batchUserLookupDto,
+                                                     @RequestParam(name = "fields", required = false) String fields) {
+        UserFields userFields = UserFields.parse(fields);
+
+        return Mono.zip(userService.getUsersByIds(batchUserLookupDto.getIds(), userFields),
+                        userService.getUsersByEmails(batchUserLookupDto.getEmails(), userFields),
+                        userService.getUsersByMobileNos(batchUserLookupDto.getMobileNos(), userFields))
+                .map(users -> BatchUserLookupResponseDto.builder()
+                        .ids(mapUsersToUserLookupResultDtos(users.getT1(), userFields))
+                        .emails(mapUsersToUserLookupResultDtos(users.getT2(), userFields))
+                        .mobileNos(mapUsersToUserLookupResultDtos(users.getT3(), userFields))
+                        .build());
+    }
+
+    private Map<String, UserLookupResultDto> mapUsersToUserLookupResultDtos(Map<String, Optional<User>> users, UserFields userFields) {
+        Map<String, UserLookupResultDto> userLookupResultDtos = new LinkedHashMap<>();
+        users.forEach((key, user) -> userLookupResultDtos.put(key, UserLookupResultDto.builder()
+                .found(user.isPresent())
+                .user(user.map(foundUser -> mapUserToUserResponseDto(foundUser, userFields)).orElse(null))
+                .build()));
+        return userLookupResultDtos;
+    }
+
+    UserResponseDto mapUserToUserResponseDto(User user) {
+        return mapUserToUserResponseDto(user, UserFields.ALL);
     }
 
-    private UserResponseDto mapUserToUserResponseDto(User user) {
+    /**
+     * Fields that are not selected are left null and omitted from the response.
+     */
+    UserResponseDto mapUserToUserResponseDto(User user, UserFields userFields) {
         return UserResponseDto.builder()
-                .id(user.getId())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .email(user.getEmail())
-                .address1(user.getAddress1())
-                .address2(user.getAddress2())
-                .city(user.getCity())
-                .state(user.getState())
-                .zip(user.getZip())
-                .location(user.getLocation())
+                .id(userFields.includes("id") ? user.getId() : null)
+                .firstName(userFields.includes("firstName") ? user.getFirstName() : null)
+                .lastName(userFields.includes("lastName") ? user.getLastName() : null)
+                .email(userFields.includes("email") ? user.getEmail() : null)
+                .address1(userFields.includes("address1") ? user.getAddress1() : null)
+                .address2(userFields.includes("address2") ? user.getAddress2() : null)
+                .city(userFields.includes("city") ? user.getCity() : null)
+                .state(userFields.includes("state") ? user.getState() : null)
+                .zip(userFields.includes("zip") ? user.getZip() : null)
+                .location(userFields.includes("location") ? user.getLocation() : null)
                 .build();
     }
 }
@@ -5,6 +5,8 @@ import com.awpghost.user.enums.VerificationMethod;
 import com.awpghost.user.exceptions.TokenVerificationException;
 import com.awpghost.user.exceptions.UserNotFoundException;
 import com.awpghost.user.services.UserService;
+import com.awpghost.user.services.cache.UserLookupCoalescer;
+import com.awpghost.user.services.ratelimit.RateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -24,30 +26,35 @@ public class UserOTPController {
 
     private final UserService userService;
 
+    private final RateLimiter rateLimiter;
+
     @Autowired
-    public UserOTPController(UserService userService) {
+    public UserOTPController(UserService userService, RateLimiter rateLimiter) {
         this.userService = userService;
+        this.rateLimiter = rateLimiter;
     }
 
     @Operation(summary = "Verify mobile number with OTP", description = "Verify mobile number with OTP")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful mobile number verification"),
+            @ApiResponse(responseCode = "429", description = "Too many OTP requests, retry after the time given in the Retry-After header"),
     })
     @PostMapping("/mobileNo/otp")
     public Mono<OTPResponse> generateMobileNumberOTP(@RequestParam(name = "id") final String id,
                                                      @RequestParam(name = "mobileNo") final String mobileNo) {
         if (StringUtils.hasText(id)) {
             log.info("Generate OTP for User to mobile number with id: {}", id);
-            return userService.getUserById(id).flatMap(user -> {
+            return rateLimiter.acquire(RateLimiter.MOBILE_OTP, id, mobileNo).then(Mono.defer(() -> userService.getUserById(id))).flatMap(user -> {
                 if (user.isPresent()) {
                     return userService.generateVerificationMobileNo(mobileNo, VerificationMethod.OTP);
                 } else {
                     return Mono.error(new UserNotFoundException("User not found"));
                 }
-            });
+            }).contextWrite(UserLookupCoalescer.sharedLookups());
         } else if (StringUtils.hasText(mobileNo)) {
             log.info("Generate OTP for User with mobile number: {}", mobileNo);
-            return userService.generateVerificationMobileNo(mobileNo, VerificationMethod.OTP);
+            return rateLimiter.acquire(RateLimiter.MOBILE_OTP, null, mobileNo)
+                    .then(Mono.defer(() -> userService.generateVerificationMobileNo(mobileNo, VerificationMethod.OTP)));
         } else {
             return Mono.error(new TokenVerificationException("No token or otp provided"));
         }
@@ -56,6 +63,7 @@ public class UserOTPController {
     @Operation(summary = "Verify email address with token", description = "Verify email address with token")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "View email with verification link."),
+            @ApiResponse(responseCode = "429", description = "Too many verification link requests, retry after the time given in the Retry-After header"),
     })
     @PostMapping("/email/token")
     public Mono<Boolean> generateEmailToken(@RequestParam(name = "id") final String id,
@@ -63,16 +71,23 @@ public class UserOTPController {
 
         if (StringUtils.hasText(id)) {
             log.info("Generate OTP for User to mobile number with id: {}", id);
-            return userService.getUserById(id).flatMap(user -> {
-                if (user.isPresent()) {
-                    return userService.generateVerificationEmail(user.get().getEmail(), VerificationMethod.TOKEN);
-                } else {
+            // The link goes to the email address of the user, so that address is the recipient limited, not the parameter.
+            // It is only known after the lookup, which the user and global limits guard.
+            return rateLimiter.acquire(RateLimiter.EMAIL_TOKEN, id, null).then(Mono.defer(() -> userService.getUserById(id))).flatMap(user -> {
+                if (user.isEmpty()) {
                     return Mono.error(new UserNotFoundException("User not found"));
                 }
-            });
+                String recipient = user.get().getEmail();
+                if (!StringUtils.hasText(recipient)) {
+                    return Mono.error(new UserNotFoundException("User has no email address"));
+                }
+                return rateLimiter.acquireRecipient(RateLimiter.EMAIL_TOKEN, recipient)
+                        .then(Mono.defer(() -> userService.generateVerificationEmail(recipient, VerificationMethod.TOKEN)));
+            }).contextWrite(UserLookupCoalescer.sharedLookups());
         } else if (StringUtils.hasText(email)) {
             log.info("Generate token for User with email address: {}", email);
-            return userService.generateVerificationEmail(email, VerificationMethod.TOKEN);
+            return rateLimiter.acquire(RateLimiter.EMAIL_TOKEN, null, email)
+                    .then(Mono.defer(() -> userService.generateVerificationEmail(email, VerificationMethod.TOKEN)));
         } else {
             return Mono.error(new TokenVerificationException("No token or otp provided"));
         }
@@ -0,0 +1,38 @@
+package com.awpghost.user.controllers;
+
+import com.awpghost.user.services.view.UserView;
+import io.swagger.v3.oas.annotations.Hidden;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers interactive queries of other replicas from the partitions of the user view owned by this instance.
+ */
+@Hidden
+@RequestMapping("/internal/user-view")
+@RestController
+public class UserViewController {
+
+    private final UserView userView;
+
+    @Autowired
+    public UserViewController(UserView userView) {
+        this.userView = userView;
+    }
+
+    @GetMapping(value = "/{store}/{key}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<String>> getLocal(@PathVariable String store, @PathVariable String key) {
+        if (!UserView.STORES.contains(store)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return userView.findLocal(store, key)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,12 @@
+package com.awpghost.user.dto.requests;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchUserLookupDto {
+    private List<String> ids;
+    private List<String> emails;
+    private List<String> mobileNos;
+}
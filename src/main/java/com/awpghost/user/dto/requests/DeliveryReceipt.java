@@ -0,0 +1,30 @@
+package com.awpghost.user.dto.requests;
+
+import com.awpghost.user.enums.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Delivery outcome of an email or SMS, published by the Email and SMS microservices.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryReceipt {
+
+    @NotBlank
+    private String recipient; // Email address or mobile number
+
+    @NotNull
+    private DeliveryStatus status;
+
+    @NotNull
+    private Long timestamp; // Epoch milliseconds
+
+}
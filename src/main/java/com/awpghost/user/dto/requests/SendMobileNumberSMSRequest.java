@@ -1,7 +1,9 @@
 package com.awpghost.user.dto.requests;
 
 import lombok.Builder;
+import lombok.Data;
 
+@Data
 @Builder
 public class SendMobileNumberSMSRequest {
     private String mobileNo;
@@ -4,13 +4,24 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotBlank;
+
 @Getter
 @Setter
 @Data
 public class UserDto {
+    @NotBlank
     private String firstName;
+
     private String lastName;
+
+    @NotBlank
+    @Email
     private String email;
+
     private String nationality;
+
+    @NotBlank
     private String mobileNo;
 }
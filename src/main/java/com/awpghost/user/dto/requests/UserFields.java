@@ -0,0 +1,87 @@
+package com.awpghost.user.dto.requests;
+
+import com.awpghost.user.dto.responses.UserResponseDto;
+import com.awpghost.user.exceptions.GetUserException;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fields of {@link UserResponseDto} selected with the {@code fields} request parameter, a comma separated list of
+ * field names. Reads fetch only the matching document attributes and the response carries only the selected fields.
+ */
+public final class UserFields {
+
+    public static final UserFields ALL = new UserFields(null);
+
+    // Response field to the user document attribute it is read from
+    private static final Map<String, String> ATTRIBUTES = Map.of(
+            "id", "_key",
+            "firstName", "firstName",
+            "lastName", "lastName",
+            "email", "email",
+            "address1", "address1",
+            "address2", "address2",
+            "city", "city",
+            "state", "state",
+            "zip", "zip",
+            "location", "location");
+
+    private final Set<String> fields;
+
+    private UserFields(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static UserFields parse(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return ALL;
+        }
+
+        Set<String> selectedFields = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        selectedFields.stream()
+                .filter(field -> !ATTRIBUTES.containsKey(field))
+                .findFirst()
+                .ifPresent(field -> {
+                    throw new GetUserException("Unknown field: " + field + ", fields are " + ATTRIBUTES.keySet());
+                });
+
+        return selectedFields.isEmpty() ? ALL : new UserFields(selectedFields);
+    }
+
+    /**
+     * Suffix telling apart the representations of one user revision under different projections, empty when every
+     * field is selected. It lists the selected fields sorted, so it cannot collide across projections and selecting
+     * the same fields in another order gives the same suffix. Revisions never contain its {@code ;} separator.
+     */
+    public String tag() {
+        return fields == null ? "" : fields.stream().sorted().collect(Collectors.joining(",", ";", ""));
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Document attributes to read, always including the document handle and {@code keyAttribute}, which lookups need
+     * to match results to the requested keys. Empty when every attribute is selected.
+     */
+    public List<String> attributes(String keyAttribute) {
+        if (fields == null) {
+            return List.of();
+        }
+
+        Set<String> attributes = new LinkedHashSet<>(List.of("_key", "_id", keyAttribute));
+        fields.forEach(field -> attributes.add(ATTRIBUTES.get(field)));
+        return List.copyOf(attributes);
+    }
+}
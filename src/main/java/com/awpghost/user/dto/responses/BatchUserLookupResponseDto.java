@@ -0,0 +1,15 @@
+package com.awpghost.user.dto.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class BatchUserLookupResponseDto {
+    // Every requested key is present, keyed by the value given in the request
+    private Map<String, UserLookupResultDto> ids;
+    private Map<String, UserLookupResultDto> emails;
+    private Map<String, UserLookupResultDto> mobileNos;
+}
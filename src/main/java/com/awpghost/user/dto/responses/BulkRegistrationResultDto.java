@@ -0,0 +1,14 @@
+package com.awpghost.user.dto.responses;
+
+import com.awpghost.user.enums.RegistrationStatus;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BulkRegistrationResultDto {
+    private long index; // Position of the record in the uploaded stream, starting from 0
+    private RegistrationStatus status;
+    private String id;
+    private String error;
+}
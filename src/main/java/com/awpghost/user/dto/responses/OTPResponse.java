@@ -1,11 +1,15 @@
 package com.awpghost.user.dto.responses;
 
 import lombok.Builder;
+import lombok.Data;
 
 import java.time.ZonedDateTime;
 
+/**
+ * Answer to an OTP request. The OTP itself is only sent by SMS, verifying it is what proves possession of the number.
+ */
+@Data
 @Builder
 public class OTPResponse {
-    private String otp;
     private ZonedDateTime expiry;
 }
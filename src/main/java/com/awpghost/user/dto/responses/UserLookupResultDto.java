@@ -0,0 +1,11 @@
+package com.awpghost.user.dto.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class UserLookupResultDto {
+    private boolean found;
+    private UserResponseDto user;
+}
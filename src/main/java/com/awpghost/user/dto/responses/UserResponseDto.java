@@ -1,10 +1,13 @@
 package com.awpghost.user.dto.responses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+// Fields left out by a projection are omitted rather than sent as null
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class UserResponseDto {
     private String id;
     private String firstName;
@@ -0,0 +1,16 @@
+package com.awpghost.user.dto.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserSearchResponseDto {
+    // Best match first
+    private List<UserResponseDto> users;
+    private int page;
+    private int size;
+    private boolean hasMore;
+}
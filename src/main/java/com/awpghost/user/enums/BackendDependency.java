@@ -0,0 +1,7 @@
+package com.awpghost.user.enums;
+
+public enum BackendDependency {
+    ARANGODB,
+    REDIS,
+    KAFKA
+}
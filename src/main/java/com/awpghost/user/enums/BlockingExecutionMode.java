@@ -0,0 +1,7 @@
+package com.awpghost.user.enums;
+
+public enum BlockingExecutionMode {
+    BOUNDED_ELASTIC,
+    FIXED,
+    VIRTUAL
+}
@@ -0,0 +1,6 @@
+package com.awpghost.user.enums;
+
+public enum EmailVerificationMode {
+    STORED,
+    SIGNED
+}
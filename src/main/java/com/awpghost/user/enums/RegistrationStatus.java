@@ -0,0 +1,8 @@
+package com.awpghost.user.enums;
+
+public enum RegistrationStatus {
+    CREATED,
+    INVALID,
+    DUPLICATE,
+    FAILED
+}
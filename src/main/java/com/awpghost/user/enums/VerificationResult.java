@@ -0,0 +1,9 @@
+package com.awpghost.user.enums;
+
+public enum VerificationResult {
+    VERIFIED,
+    MISMATCH,
+    NOT_FOUND,
+    EXPIRED,
+    ATTEMPTS_EXCEEDED
+}
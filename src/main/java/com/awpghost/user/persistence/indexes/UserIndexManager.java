@@ -0,0 +1,173 @@
+package com.awpghost.user.persistence.indexes;
+
+import com.arangodb.async.ArangoDatabaseAsync;
+import com.arangodb.entity.AqlExecutionExplainEntity;
+import com.arangodb.entity.IndexEntity;
+import com.arangodb.entity.IndexType;
+import com.arangodb.model.AqlQueryExplainOptions;
+import com.arangodb.model.PersistentIndexOptions;
+import com.arangodb.springframework.annotation.PersistentIndexed;
+import com.arangodb.springframework.core.ArangoOperations;
+import com.arangodb.springframework.core.CollectionOperations;
+import com.awpghost.user.persistence.models.User;
+import com.awpghost.user.persistence.repositories.ReactiveUserRepositoryImpl;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Provisions the indexes declared on {@link User} with {@link PersistentIndexed} and reconciles them with the indexes
+ * found on the collection. Afterwards every repository query is EXPLAINed and a plan that enumerates the whole
+ * collection is reported, so full scans show up at deploy time.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "arangodb.indexes.enabled", havingValue = "true", matchIfMissing = true)
+public class UserIndexManager implements ApplicationRunner {
+
+    static final String FULL_SCAN_NODE = "EnumerateCollectionNode";
+
+    private final ArangoOperations arangoOperations;
+
+    private final ArangoDatabaseAsync arangoDatabaseAsync;
+
+    private final boolean dropUnmanaged;
+
+    private final boolean failOnFullScan;
+
+    @Autowired
+    public UserIndexManager(ArangoOperations arangoOperations,
+                            ArangoDatabaseAsync arangoDatabaseAsync,
+                            @Value("${arangodb.indexes.drop-unmanaged:false}") boolean dropUnmanaged,
+                            @Value("${arangodb.indexes.fail-on-full-scan:false}") boolean failOnFullScan) {
+        this.arangoOperations = arangoOperations;
+        this.arangoDatabaseAsync = arangoDatabaseAsync;
+        this.dropUnmanaged = dropUnmanaged;
+        this.failOnFullScan = failOnFullScan;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reconcileIndexes();
+        verifyQueryPlans();
+    }
+
+    void reconcileIndexes() {
+        CollectionOperations collectionOperations = arangoOperations.collection(User.class);
+        Map<String, PersistentIndexed> declaredIndexes = declaredIndexes();
+        Collection<IndexEntity> existingIndexes = collectionOperations.getIndexes();
+
+        declaredIndexes.forEach((field, persistentIndexed) -> {
+            IndexEntity existingIndex = existingIndexes.stream()
+                    .filter(indexEntity -> indexEntity.getType() == IndexType.persistent)
+                    .filter(indexEntity -> indexEntity.getFields().size() == 1 && indexEntity.getFields().contains(field))
+                    .findFirst()
+                    .orElse(null);
+
+            if (existingIndex == null) {
+                log.info("Creating persistent index on user.{}", field);
+                collectionOperations.ensurePersistentIndex(List.of(field), new PersistentIndexOptions()
+                        .unique(persistentIndexed.unique())
+                        .sparse(persistentIndexed.sparse()));
+            } else if (!Objects.equals(existingIndex.getUnique(), persistentIndexed.unique())
+                    || !Objects.equals(existingIndex.getSparse(), persistentIndexed.sparse())) {
+                log.warn("Index {} on user.{} does not match its declaration (unique: {}, sparse: {}), it has to be recreated manually",
+                        existingIndex.getId(), field, persistentIndexed.unique(), persistentIndexed.sparse());
+            }
+        });
+
+        existingIndexes.stream()
+                .filter(indexEntity -> indexEntity.getType() != IndexType.primary && indexEntity.getType() != IndexType.edge)
+                .filter(indexEntity -> indexEntity.getFields().size() != 1 || !declaredIndexes.containsKey(indexEntity.getFields().iterator().next()))
+                .forEach(indexEntity -> {
+                    if (dropUnmanaged) {
+                        log.info("Dropping unmanaged index {} on user {}", indexEntity.getId(), indexEntity.getFields());
+                        collectionOperations.dropIndex(indexEntity.getId());
+                    } else {
+                        log.warn("Unmanaged index {} on user {}", indexEntity.getId(), indexEntity.getFields());
+                    }
+                });
+    }
+
+    void verifyQueryPlans() {
+        List<String> fullScans = new ArrayList<>();
+
+        planCheckedQueries(arangoOperations.collection(User.class).name()).forEach((query, bindVars) -> {
+            AqlExecutionExplainEntity explain = arangoDatabaseAsync.explainQuery(query, bindVars, new AqlQueryExplainOptions()).join();
+            boolean fullScan = explain.getPlan().getNodes().stream()
+                    .anyMatch(executionNode -> FULL_SCAN_NODE.equals(executionNode.getType()));
+            if (fullScan) {
+                fullScans.add(query);
+            }
+        });
+
+        if (fullScans.isEmpty()) {
+            log.info("All user queries are served by an index");
+            return;
+        }
+
+        fullScans.forEach(query -> log.warn("Query falls back to a full collection scan: {}", query));
+        if (failOnFullScan) {
+            throw new IllegalStateException(fullScans.size() + " user queries fall back to a full collection scan");
+        }
+    }
+
+    /**
+     * Queries of {@link ReactiveUserRepositoryImpl} with sample bind values, add new lookups here so their plans are checked.
+     * Every parameter of a query must be bound, ArangoDB refuses to EXPLAIN a query with a missing bind variable.
+     */
+    static Map<String, Map<String, Object>> planCheckedQueries(String collection) {
+        Map<String, Map<String, Object>> queries = new LinkedHashMap<>();
+        queries.put(ReactiveUserRepositoryImpl.FIND_BY_EMAIL_QUERY, bindVars(collection, "email", "explain@example.com"));
+        queries.put(ReactiveUserRepositoryImpl.FIND_BY_MOBILE_NO_QUERY, bindVars(collection, "mobileNo", "+60000000000"));
+        queries.put(ReactiveUserRepositoryImpl.FIND_ALL_BY_IDS_QUERY,
+                bindVars(collection, "ids", List.of("explain"), "attributes", List.of()));
+        queries.put(ReactiveUserRepositoryImpl.FIND_ALL_BY_EMAILS_QUERY,
+                bindVars(collection, "emails", List.of("explain@example.com"), "attributes", List.of()));
+        queries.put(ReactiveUserRepositoryImpl.FIND_ALL_BY_MOBILE_NOS_QUERY,
+                bindVars(collection, "mobileNos", List.of("+60000000000"), "attributes", List.of()));
+        queries.put(ReactiveUserRepositoryImpl.FIND_PAGE_AFTER_QUERY, bindVars(collection, "after", "", "limit", 1));
+        queries.put(ReactiveUserRepositoryImpl.UPDATE_EMAIL_DELIVERY_STATUS_QUERY,
+                bindVars(collection, "receipts", List.of(Map.of("recipient", "explain@example.com", "status", "DELIVERED", "timestamp", 0L))));
+        queries.put(ReactiveUserRepositoryImpl.UPDATE_MOBILE_NO_DELIVERY_STATUS_QUERY,
+                bindVars(collection, "receipts", List.of(Map.of("recipient", "+60000000000", "status", "DELIVERED", "timestamp", 0L))));
+        return queries;
+    }
+
+    private static Map<String, Object> bindVars(String collection, String name, Object value) {
+        Map<String, Object> bindVars = new HashMap<>();
+        bindVars.put("@collection", collection);
+        bindVars.put(name, value);
+        return bindVars;
+    }
+
+    private static Map<String, Object> bindVars(String collection, String name, Object value, String otherName, Object otherValue) {
+        Map<String, Object> bindVars = bindVars(collection, name, value);
+        bindVars.put(otherName, otherValue);
+        return bindVars;
+    }
+
+    private static Map<String, PersistentIndexed> declaredIndexes() {
+        Map<String, PersistentIndexed> declaredIndexes = new LinkedHashMap<>();
+        for (Field field : User.class.getDeclaredFields()) {
+            PersistentIndexed persistentIndexed = field.getAnnotation(PersistentIndexed.class);
+            if (persistentIndexed != null) {
+                declaredIndexes.put(field.getName(), persistentIndexed);
+            }
+        }
+        return declaredIndexes;
+    }
+}
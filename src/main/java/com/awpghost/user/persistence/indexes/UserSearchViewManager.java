@@ -0,0 +1,122 @@
+package com.awpghost.user.persistence.indexes;
+
+import com.arangodb.async.ArangoDatabaseAsync;
+import com.arangodb.async.ArangoSearchAsync;
+import com.arangodb.entity.arangosearch.AnalyzerFeature;
+import com.arangodb.entity.arangosearch.CollectionLink;
+import com.arangodb.entity.arangosearch.FieldLink;
+import com.arangodb.entity.arangosearch.analyzer.EdgeNgram;
+import com.arangodb.entity.arangosearch.analyzer.SearchAnalyzer;
+import com.arangodb.entity.arangosearch.analyzer.SearchAnalyzerCase;
+import com.arangodb.entity.arangosearch.analyzer.TextAnalyzer;
+import com.arangodb.entity.arangosearch.analyzer.TextAnalyzerProperties;
+import com.arangodb.model.arangosearch.ArangoSearchCreateOptions;
+import com.arangodb.model.arangosearch.ArangoSearchPropertiesOptions;
+import com.arangodb.springframework.core.ArangoOperations;
+import com.awpghost.user.persistence.models.User;
+import com.awpghost.user.persistence.repositories.ReactiveUserRepositoryImpl;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Provisions the ArangoSearch view behind the user search. The searchable fields are indexed with an edge n-gram text
+ * analyzer, so every prefix of every token is a term of the inverted index and typeahead matching is a term lookup
+ * rather than a scan. Search input is tokenized with the same text analyzer without n-grams.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "arangodb.indexes.enabled", havingValue = "true", matchIfMissing = true)
+public class UserSearchViewManager implements ApplicationRunner {
+
+    public static final String VIEW = "user_search";
+
+    public static final String PREFIX_ANALYZER = "user_prefix";
+
+    public static final String QUERY_ANALYZER = "user_text";
+
+    public static final int MIN_PREFIX_LENGTH = 2;
+
+    public static final int MAX_PREFIX_LENGTH = 20;
+
+    private final ArangoOperations arangoOperations;
+
+    private final ArangoDatabaseAsync arangoDatabaseAsync;
+
+    @Autowired
+    public UserSearchViewManager(ArangoOperations arangoOperations, ArangoDatabaseAsync arangoDatabaseAsync) {
+        this.arangoOperations = arangoOperations;
+        this.arangoDatabaseAsync = arangoDatabaseAsync;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensureAnalyzers();
+        ensureView();
+    }
+
+    void ensureAnalyzers() {
+        // Analyzer names are returned prefixed with the database name
+        Set<String> existingAnalyzers = arangoDatabaseAsync.getSearchAnalyzers().join().stream()
+                .map(SearchAnalyzer::getName)
+                .map(name -> name.substring(name.indexOf("::") + 2))
+                .collect(Collectors.toSet());
+
+        EdgeNgram edgeNgram = new EdgeNgram();
+        edgeNgram.setMin(MIN_PREFIX_LENGTH);
+        edgeNgram.setMax(MAX_PREFIX_LENGTH);
+        edgeNgram.setPreserveOriginal(true);
+
+        ensureAnalyzer(existingAnalyzers, textAnalyzer(PREFIX_ANALYZER, edgeNgram));
+        ensureAnalyzer(existingAnalyzers, textAnalyzer(QUERY_ANALYZER, null));
+    }
+
+    void ensureView() {
+        CollectionLink collectionLink = CollectionLink.on(arangoOperations.collection(User.class).name())
+                .analyzers(PREFIX_ANALYZER)
+                .includeAllFields(false)
+                .fields(ReactiveUserRepositoryImpl.SEARCH_FIELDS.stream().map(FieldLink::on).toArray(FieldLink[]::new));
+
+        ArangoSearchAsync view = arangoDatabaseAsync.arangoSearch(VIEW);
+        if (Boolean.TRUE.equals(view.exists().join())) {
+            // Only changed links are reindexed
+            view.replaceProperties(new ArangoSearchPropertiesOptions().link(collectionLink)).join();
+        } else {
+            log.info("Creating search view {} on user {}", VIEW, ReactiveUserRepositoryImpl.SEARCH_FIELDS);
+            arangoDatabaseAsync.createArangoSearch(VIEW, new ArangoSearchCreateOptions().link(collectionLink)).join();
+        }
+    }
+
+    private void ensureAnalyzer(Collection<String> existingAnalyzers, SearchAnalyzer searchAnalyzer) {
+        if (existingAnalyzers.contains(searchAnalyzer.getName())) {
+            return;
+        }
+        log.info("Creating search analyzer {}", searchAnalyzer.getName());
+        arangoDatabaseAsync.createSearchAnalyzer(searchAnalyzer).join();
+    }
+
+    private static TextAnalyzer textAnalyzer(String name, EdgeNgram edgeNgram) {
+        TextAnalyzerProperties properties = new TextAnalyzerProperties();
+        properties.setLocale("en.utf-8");
+        properties.setAnalyzerCase(SearchAnalyzerCase.lower);
+        properties.setAccent(false);
+        properties.setStemming(false);
+        properties.setStopwords(List.of());
+        properties.setEdgeNgram(edgeNgram);
+
+        TextAnalyzer textAnalyzer = new TextAnalyzer();
+        textAnalyzer.setName(name);
+        textAnalyzer.setProperties(properties);
+        // Frequency and norm are needed by BM25 ranking
+        textAnalyzer.setFeatures(Set.of(AnalyzerFeature.frequency, AnalyzerFeature.norm, AnalyzerFeature.position));
+        return textAnalyzer;
+    }
+}
@@ -3,9 +3,14 @@ package com.awpghost.user.persistence.models;
 
 import com.arangodb.springframework.annotation.ArangoId;
 import com.arangodb.springframework.annotation.Document;
+import com.arangodb.springframework.annotation.PersistentIndexed;
+import com.arangodb.springframework.annotation.Rev;
+import com.awpghost.user.enums.DeliveryStatus;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
 
@@ -13,6 +18,8 @@ import org.springframework.data.annotation.Id;
 @Setter
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @Document("user")
 public class User {
     @Id
@@ -21,14 +28,19 @@ public class User {
     @ArangoId
     private String arangoId;
 
+    @Rev
+    private String revision; // Changes with every write of the document
+
     private String firstName;
 
     private String lastName;
 
+    @PersistentIndexed(unique = true, sparse = true)
     private String email;
 
     private String location; // Country/region code ISO 3166-2
 
+    @PersistentIndexed(unique = true, sparse = true)
     private String mobileNo;
 
     private String address1;
@@ -41,4 +53,12 @@ public class User {
 
     private String zip;
 
+    private DeliveryStatus emailDeliveryStatus;
+
+    private Long emailDeliveryUpdatedAt; // Epoch milliseconds of the receipt
+
+    private DeliveryStatus mobileNoDeliveryStatus;
+
+    private Long mobileNoDeliveryUpdatedAt; // Epoch milliseconds of the receipt
+
 }
@@ -0,0 +1,40 @@
+package com.awpghost.user.persistence.repositories;
+
+import com.awpghost.user.persistence.models.User;
+import lombok.Getter;
+
+/**
+ * Outcome of one document of a multi-document insert, in the order the documents were given.
+ */
+@Getter
+public class InsertResult {
+    public static final int UNIQUE_CONSTRAINT_VIOLATED = 1210;
+
+    private final User user;
+
+    private final Integer errorNum;
+
+    private final String errorMessage;
+
+    private InsertResult(User user, Integer errorNum, String errorMessage) {
+        this.user = user;
+        this.errorNum = errorNum;
+        this.errorMessage = errorMessage;
+    }
+
+    public static InsertResult saved(User user) {
+        return new InsertResult(user, null, null);
+    }
+
+    public static InsertResult failed(Integer errorNum, String errorMessage) {
+        return new InsertResult(null, errorNum, errorMessage);
+    }
+
+    public boolean isSaved() {
+        return user != null;
+    }
+
+    public boolean isDuplicate() {
+        return errorNum != null && errorNum == UNIQUE_CONSTRAINT_VIOLATED;
+    }
+}
@@ -0,0 +1,51 @@
+package com.awpghost.user.persistence.repositories;
+
+import com.awpghost.user.dto.requests.DeliveryReceipt;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.persistence.models.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReactiveUserRepository {
+    int SEARCH_MAX_TERMS = 4;
+
+    Mono<User> save(User user);
+
+    Flux<InsertResult> saveAll(List<User> users);
+
+    Mono<User> findById(String id);
+
+    Mono<User> findByEmail(String email);
+
+    Mono<User> findByMobileNo(String mobileNo);
+
+    /**
+     * Users with the given ids. Only {@code attributes} are read when not empty, other fields of the users are null.
+     */
+    Flux<User> findAllByIds(Collection<String> ids, List<String> attributes);
+
+    Flux<User> findAllByEmails(Collection<String> emails, List<String> attributes);
+
+    Flux<User> findAllByMobileNos(Collection<String> mobileNos, List<String> attributes);
+
+    /**
+     * Users with a key after {@code afterKey} in key order, at most {@code limit}, read with one cursor round trip.
+     */
+    Flux<User> findPageAfter(String afterKey, int limit, Duration cursorTimeToLive);
+
+    /**
+     * Users matching every term by prefix in at least one searchable field, best match first. The query is aborted by
+     * the database once it runs longer than {@code maxRuntime}.
+     */
+    Flux<User> search(List<String> terms, int offset, int limit, Duration maxRuntime);
+
+    /**
+     * Applies the receipts of one channel in a single query, at most one receipt per recipient. Receipts older than the
+     * last one applied to a user are ignored. Returns the updated users.
+     */
+    Flux<User> updateDeliveryStatus(VerificationType verificationType, Collection<DeliveryReceipt> receipts);
+}
@@ -0,0 +1,243 @@
+package com.awpghost.user.persistence.repositories;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.async.ArangoCollectionAsync;
+import com.arangodb.async.ArangoCursorAsync;
+import com.arangodb.async.ArangoDatabaseAsync;
+import com.arangodb.entity.DocumentCreateEntity;
+import com.arangodb.entity.ErrorEntity;
+import com.arangodb.entity.MultiDocumentEntity;
+import com.arangodb.model.AqlQueryOptions;
+import com.arangodb.model.DocumentCreateOptions;
+import com.arangodb.springframework.core.ArangoOperations;
+import com.arangodb.springframework.core.convert.ArangoConverter;
+import com.arangodb.velocypack.VPackBuilder;
+import com.arangodb.velocypack.VPackSlice;
+import com.awpghost.user.dto.requests.DeliveryReceipt;
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.persistence.indexes.UserSearchViewManager;
+import com.awpghost.user.persistence.models.User;
+import com.awpghost.user.services.resilience.BackendGuard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Non-blocking {@link User} repository on top of the async ArangoDB driver.
+ * Documents are read and written as {@link VPackSlice} and mapped with the Spring Data {@link ArangoConverter},
+ * so the mapping stays identical to {@link UserRepository}.
+ */
+@Repository
+public class ReactiveUserRepositoryImpl implements ReactiveUserRepository {
+
+    // ERROR_QUERY_KILLED, also raised when a query exceeds its maxRuntime
+    private static final int QUERY_KILLED = 1500;
+
+    public static final String FIND_BY_EMAIL_QUERY = "FOR u IN @@collection FILTER u.email == @email LIMIT 1 RETURN u";
+
+    public static final String FIND_BY_MOBILE_NO_QUERY = "FOR u IN @@collection FILTER u.mobileNo == @mobileNo LIMIT 1 RETURN u";
+
+    // An empty @attributes returns whole documents
+    private static final String RETURN_PROJECTED = " RETURN LENGTH(@attributes) == 0 ? u : KEEP(u, @attributes)";
+
+    public static final String FIND_ALL_BY_IDS_QUERY = "FOR u IN @@collection FILTER u._key IN @ids" + RETURN_PROJECTED;
+
+    public static final String FIND_ALL_BY_EMAILS_QUERY = "FOR u IN @@collection FILTER u.email IN @emails" + RETURN_PROJECTED;
+
+    public static final String FIND_ALL_BY_MOBILE_NOS_QUERY = "FOR u IN @@collection FILTER u.mobileNo IN @mobileNos" + RETURN_PROJECTED;
+
+    public static final String FIND_PAGE_AFTER_QUERY = "FOR u IN @@collection FILTER u._key > @after SORT u._key LIMIT @limit RETURN u";
+
+    /**
+     * Fields indexed by the {@link UserSearchViewManager#VIEW} view, matched by {@link #search}.
+     */
+    public static final List<String> SEARCH_FIELDS = List.of("firstName", "lastName", "email", "mobileNo", "city");
+
+    /**
+     * Search queries by number of terms, index 0 matches one term. Every term is tokenized like the indexed values and
+     * has to match the start of a token in one of the {@link #SEARCH_FIELDS}.
+     */
+    public static final List<String> SEARCH_QUERIES = IntStream.rangeClosed(1, SEARCH_MAX_TERMS)
+            .mapToObj(ReactiveUserRepositoryImpl::searchQuery)
+            .collect(Collectors.toUnmodifiableList());
+
+    public static final String UPDATE_EMAIL_DELIVERY_STATUS_QUERY = "FOR r IN @receipts FOR u IN @@collection "
+            + "FILTER u.email == r.recipient AND u.emailDeliveryUpdatedAt < r.timestamp "
+            + "UPDATE u WITH { emailDeliveryStatus: r.status, emailDeliveryUpdatedAt: r.timestamp } IN @@collection RETURN NEW";
+
+    public static final String UPDATE_MOBILE_NO_DELIVERY_STATUS_QUERY = "FOR r IN @receipts FOR u IN @@collection "
+            + "FILTER u.mobileNo == r.recipient AND u.mobileNoDeliveryUpdatedAt < r.timestamp "
+            + "UPDATE u WITH { mobileNoDeliveryStatus: r.status, mobileNoDeliveryUpdatedAt: r.timestamp } IN @@collection RETURN NEW";
+
+    private final ArangoDatabaseAsync arangoDatabaseAsync;
+
+    private final ArangoCollectionAsync collection;
+
+    private final ArangoConverter converter;
+
+    private final String collectionName;
+
+    private final BackendGuard backendGuard;
+
+    @Autowired
+    public ReactiveUserRepositoryImpl(ArangoDatabaseAsync arangoDatabaseAsync, ArangoOperations arangoOperations, BackendGuard backendGuard) {
+        this.arangoDatabaseAsync = arangoDatabaseAsync;
+        this.backendGuard = backendGuard;
+        this.converter = arangoOperations.getConverter();
+        this.collectionName = converter.getMappingContext().getRequiredPersistentEntity(User.class).getCollection();
+        this.collection = arangoDatabaseAsync.collection(collectionName);
+    }
+
+    @Override
+    public Mono<User> save(User user) {
+        return Mono.fromCallable(() -> toSlice(user))
+                .flatMap(slice -> backendGuard.call(BackendDependency.ARANGODB,
+                        Mono.fromFuture(() -> collection.insertDocument(slice, new DocumentCreateOptions().returnNew(true)))))
+                .map(documentCreateEntity -> toUser(documentCreateEntity.getNew()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Flux<InsertResult> saveAll(List<User> users) {
+        return Mono.fromCallable(() -> users.stream().map(this::toSlice).collect(Collectors.toList()))
+                .flatMap(slices -> backendGuard.bulk(BackendDependency.ARANGODB,
+                        Mono.fromFuture(() -> collection.insertDocuments(slices, new DocumentCreateOptions().returnNew(true)))))
+                .flatMapIterable(MultiDocumentEntity::getDocumentsAndErrors)
+                .map(documentOrError -> {
+                    if (documentOrError instanceof ErrorEntity) {
+                        ErrorEntity errorEntity = (ErrorEntity) documentOrError;
+                        return InsertResult.failed(errorEntity.getErrorNum(), errorEntity.getErrorMessage());
+                    }
+                    return InsertResult.saved(toUser(((DocumentCreateEntity<VPackSlice>) documentOrError).getNew()));
+                });
+    }
+
+    @Override
+    public Mono<User> findById(String id) {
+        return backendGuard.call(BackendDependency.ARANGODB, Mono.fromFuture(() -> collection.getDocument(id, VPackSlice.class)))
+                .map(this::toUser);
+    }
+
+    @Override
+    public Mono<User> findByEmail(String email) {
+        return query(FIND_BY_EMAIL_QUERY, Map.of("email", email), new AqlQueryOptions()).next();
+    }
+
+    @Override
+    public Mono<User> findByMobileNo(String mobileNo) {
+        return query(FIND_BY_MOBILE_NO_QUERY, Map.of("mobileNo", mobileNo), new AqlQueryOptions()).next();
+    }
+
+    @Override
+    public Flux<User> findAllByIds(Collection<String> ids, List<String> attributes) {
+        return bulkQuery(FIND_ALL_BY_IDS_QUERY, Map.of("ids", ids, "attributes", attributes), new AqlQueryOptions().batchSize(ids.size()));
+    }
+
+    @Override
+    public Flux<User> findAllByEmails(Collection<String> emails, List<String> attributes) {
+        return bulkQuery(FIND_ALL_BY_EMAILS_QUERY, Map.of("emails", emails, "attributes", attributes), new AqlQueryOptions().batchSize(emails.size()));
+    }
+
+    @Override
+    public Flux<User> findAllByMobileNos(Collection<String> mobileNos, List<String> attributes) {
+        return bulkQuery(FIND_ALL_BY_MOBILE_NOS_QUERY, Map.of("mobileNos", mobileNos, "attributes", attributes), new AqlQueryOptions().batchSize(mobileNos.size()));
+    }
+
+    @Override
+    public Flux<User> findPageAfter(String afterKey, int limit, Duration cursorTimeToLive) {
+        return bulkQuery(FIND_PAGE_AFTER_QUERY, Map.of("after", afterKey == null ? "" : afterKey, "limit", limit),
+                new AqlQueryOptions().batchSize(limit).ttl((int) cursorTimeToLive.toSeconds()));
+    }
+
+    @Override
+    public Flux<User> search(List<String> terms, int offset, int limit, Duration maxRuntime) {
+        Map<String, Object> bindVars = new HashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            bindVars.put("t" + i, terms.get(i));
+        }
+        bindVars.put("offset", offset);
+        bindVars.put("limit", limit);
+
+        return execute(SEARCH_QUERIES.get(terms.size() - 1), bindVars,
+                new AqlQueryOptions().batchSize(Math.max(1, limit)).maxRuntime(maxRuntime.toMillis() / 1000.0), false)
+                .onErrorMap(exception -> exception instanceof ArangoDBException && Integer.valueOf(QUERY_KILLED).equals(((ArangoDBException) exception).getErrorNum()),
+                        exception -> new TimeoutException("Search exceeded its maximum runtime of " + maxRuntime));
+    }
+
+    /**
+     * A missing {@code DeliveryUpdatedAt} attribute is null, which AQL sorts before any number, so the first receipt
+     * always applies.
+     */
+    @Override
+    public Flux<User> updateDeliveryStatus(VerificationType verificationType, Collection<DeliveryReceipt> receipts) {
+        String query = verificationType == VerificationType.EMAIL ? UPDATE_EMAIL_DELIVERY_STATUS_QUERY : UPDATE_MOBILE_NO_DELIVERY_STATUS_QUERY;
+        List<Map<String, Object>> receiptBindVars = receipts.stream()
+                .map(receipt -> Map.<String, Object>of("recipient", receipt.getRecipient(),
+                        "status", receipt.getStatus().name(),
+                        "timestamp", receipt.getTimestamp()))
+                .collect(Collectors.toList());
+
+        return bulkQuery(query, Map.of("receipts", receiptBindVars), new AqlQueryOptions().batchSize(Math.max(1, receipts.size())));
+    }
+
+    /**
+     * Runs an AQL query against the user collection. Queries must return all results in the first batch
+     * (multi-key lookups size the batch to the number of keys), otherwise fetching the next batch would block.
+     */
+    private Flux<User> query(String query, Map<String, Object> bindVars, AqlQueryOptions aqlQueryOptions) {
+        return execute(query, withCollection(bindVars), aqlQueryOptions, false);
+    }
+
+    /**
+     * Like {@link #query}, for queries whose cost grows with the number of keys or documents they carry, which are
+     * guarded as bulk calls.
+     */
+    private Flux<User> bulkQuery(String query, Map<String, Object> bindVars, AqlQueryOptions aqlQueryOptions) {
+        return execute(query, withCollection(bindVars), aqlQueryOptions, true);
+    }
+
+    private Flux<User> execute(String query, Map<String, Object> bindVars, AqlQueryOptions aqlQueryOptions, boolean bulk) {
+        Mono<ArangoCursorAsync<VPackSlice>> cursor = Mono.fromFuture(() -> arangoDatabaseAsync.query(query, bindVars, aqlQueryOptions, VPackSlice.class));
+        return (bulk ? backendGuard.bulk(BackendDependency.ARANGODB, cursor) : backendGuard.call(BackendDependency.ARANGODB, cursor))
+                .flatMapMany(arangoCursor -> Flux.fromStream(arangoCursor::streamRemaining))
+                .map(this::toUser);
+    }
+
+    private Map<String, Object> withCollection(Map<String, Object> bindVars) {
+        Map<String, Object> allBindVars = new HashMap<>(bindVars);
+        allBindVars.put("@collection", collectionName);
+        return allBindVars;
+    }
+
+    private static String searchQuery(int terms) {
+        String search = IntStream.range(0, terms)
+                .mapToObj(term -> SEARCH_FIELDS.stream()
+                        .map(field -> "u." + field + " IN TOKENS(@t" + term + ", '" + UserSearchViewManager.QUERY_ANALYZER + "')")
+                        .collect(Collectors.joining(" OR ", "ANALYZER(", ", '" + UserSearchViewManager.PREFIX_ANALYZER + "')")))
+                .collect(Collectors.joining(" AND "));
+
+        return "FOR u IN " + UserSearchViewManager.VIEW + " SEARCH " + search
+                + " SORT BM25(u) DESC, u._key LIMIT @offset, @limit RETURN u";
+    }
+
+    private VPackSlice toSlice(User user) {
+        VPackBuilder builder = new VPackBuilder();
+        converter.write(user, builder);
+        return builder.slice();
+    }
+
+    private User toUser(VPackSlice slice) {
+        return converter.read(User.class, slice);
+    }
+}
@@ -1,22 +1,38 @@
 package com.awpghost.user.services;
 
+import com.awpghost.user.dto.requests.DeliveryReceipt;
 import com.awpghost.user.dto.requests.UserDto;
+import com.awpghost.user.dto.requests.UserFields;
+import com.awpghost.user.dto.responses.BulkRegistrationResultDto;
 import com.awpghost.user.dto.responses.OTPResponse;
 import com.awpghost.user.enums.VerificationMethod;
+import com.awpghost.user.enums.VerificationType;
 import com.awpghost.user.persistence.models.User;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserService {
     Mono<User> createUser(UserDto userDto);
 
+    Flux<BulkRegistrationResultDto> createUsers(Flux<UserDto> userDtos);
+
     Mono<Optional<User>> getUserById(String id);
 
     Mono<Optional<User>> getUserByEmail(String email);
 
     Mono<Optional<User>> getUserByMobileNo(String mobileNo);
 
+    Mono<Map<String, Optional<User>>> getUsersByIds(Collection<String> ids, UserFields fields);
+
+    Mono<Map<String, Optional<User>>> getUsersByEmails(Collection<String> emails, UserFields fields);
+
+    Mono<Map<String, Optional<User>>> getUsersByMobileNos(Collection<String> mobileNos, UserFields fields);
+
     Mono<Boolean> generateVerificationEmail(String email, VerificationMethod verificationMethod);
 
     Mono<OTPResponse> generateVerificationMobileNo(String mobileNo, VerificationMethod verificationMethod);
@@ -24,4 +40,10 @@ public interface UserService {
     Mono<Boolean> verifyEmail(String token, VerificationMethod verificationMethod);
 
     Mono<Boolean> verifyMobileNo(String otp, VerificationMethod verificationMethod);
+
+    Flux<User> exportUsers(String afterId);
+
+    Flux<User> searchUsers(String query, int page, int size);
+
+    Mono<Long> applyDeliveryReceipts(VerificationType verificationType, List<DeliveryReceipt> receipts);
 }
@@ -1,123 +1,363 @@
 package com.awpghost.user.services;
 
+import com.awpghost.user.configurations.verification.EmailVerificationProperties;
+import com.awpghost.user.dto.requests.DeliveryReceipt;
 import com.awpghost.user.dto.requests.SendEmailRequest;
 import com.awpghost.user.dto.requests.SendMobileNumberSMSRequest;
 import com.awpghost.user.dto.requests.UserDto;
+import com.awpghost.user.dto.requests.UserFields;
+import com.awpghost.user.dto.responses.BulkRegistrationResultDto;
 import com.awpghost.user.dto.responses.OTPResponse;
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.enums.EmailVerificationMode;
+import com.awpghost.user.enums.RegistrationStatus;
 import com.awpghost.user.enums.VerificationMethod;
+import com.awpghost.user.enums.VerificationResult;
 import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.exceptions.GetUserException;
+import com.awpghost.user.exceptions.SearchTimeoutException;
 import com.awpghost.user.exceptions.UserNotFoundException;
+import com.awpghost.user.persistence.indexes.UserSearchViewManager;
 import com.awpghost.user.persistence.models.User;
-import com.awpghost.user.persistence.repositories.UserRepository;
+import com.awpghost.user.persistence.repositories.InsertResult;
+import com.awpghost.user.persistence.repositories.ReactiveUserRepository;
+import com.awpghost.user.services.cache.UserCache;
+import com.awpghost.user.services.cache.UserLookupCoalescer;
+import com.awpghost.user.services.execution.BlockingExecutor;
+import com.awpghost.user.services.metrics.UserServiceMetrics;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.awpghost.user.services.tokens.OtpGenerator;
+import com.awpghost.user.services.tokens.TokenGenerator;
+import com.awpghost.user.services.verification.SignedVerificationTokens;
+import com.awpghost.user.services.view.UserChangePublisher;
+import com.awpghost.user.services.view.UserView;
+import com.awpghost.user.services.verification.VerificationTokenStore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.core.ReactiveValueOperations;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Log4j2
 @Transactional
 @Service
 public class UserServiceImpl implements UserService {
-    private final UserRepository userRepository;
+    private final ReactiveUserRepository userRepository;
 
-    private final ReactiveValueOperations<String, String> reactiveValueOps;
+    private final UserCache userCache;
+
+    private final UserLookupCoalescer userLookupCoalescer;
+
+    private final UserView userView;
+
+    private final UserChangePublisher userChangePublisher;
+
+    private final VerificationTokenStore verificationTokenStore;
+
+    private final SignedVerificationTokens signedVerificationTokens;
+
+    private final EmailVerificationMode EMAIL_VERIFICATION_MODE;
 
     private final long TOKEN_EXPIRATION_TIME;
 
     private final KafkaTemplate<String, String> kafkaTemplate;
 
+    private final BlockingExecutor blockingExecutor;
+
+    private final BackendGuard backendGuard;
+
+    private final UserServiceMetrics metrics;
+
     private final AtomicReference<ObjectMapper> objectMapper;
 
     private final Environment environment;
 
-    private final Integer TOKEN_LENGTH;
+    private final OtpGenerator otpGenerator;
+
+    private final TokenGenerator tokenGenerator;
+
+    private final Validator validator;
+
+    private final Integer BULK_BATCH_SIZE;
+
+    private final Integer BATCH_LOOKUP_MAX_KEYS;
+
+    private final Integer EXPORT_BATCH_SIZE;
+
+    private final Duration EXPORT_CURSOR_TTL;
+
+    private final Integer SEARCH_MAX_PAGE_SIZE;
+
+    private final Integer SEARCH_MAX_RESULTS;
+
+    private final Duration SEARCH_TIMEOUT;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository,
-                           ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
-                           @Value("${otp.length}") Integer TOKEN_LENGTH,
+    public UserServiceImpl(ReactiveUserRepository userRepository,
+                           UserCache userCache,
+                           UserLookupCoalescer userLookupCoalescer,
+                           UserView userView,
+                           UserChangePublisher userChangePublisher,
+                           VerificationTokenStore verificationTokenStore,
+                           SignedVerificationTokens signedVerificationTokens,
+                           EmailVerificationProperties emailVerificationProperties,
+                           OtpGenerator otpGenerator,
+                           TokenGenerator tokenGenerator,
                            @Value("${token.verify.timeout}") long TOKEN_EXPIRATION_TIME,
                            KafkaTemplate<String, String> kafkaTemplate,
+                           BlockingExecutor blockingExecutor,
+                           BackendGuard backendGuard,
+                           UserServiceMetrics metrics,
                            ObjectMapper objectMapper,
-                           Environment environment) {
+                           Environment environment,
+                           Validator validator,
+                           @Value("${user.bulk.batch-size}") Integer BULK_BATCH_SIZE,
+                           @Value("${user.batch-lookup.max-keys}") Integer BATCH_LOOKUP_MAX_KEYS,
+                           @Value("${user.export.batch-size}") Integer EXPORT_BATCH_SIZE,
+                           @Value("${user.export.cursor-ttl}") Duration EXPORT_CURSOR_TTL,
+                           @Value("${user.search.max-page-size}") Integer SEARCH_MAX_PAGE_SIZE,
+                           @Value("${user.search.max-results}") Integer SEARCH_MAX_RESULTS,
+                           @Value("${user.search.timeout}") Duration SEARCH_TIMEOUT) {
         this.userRepository = userRepository;
-        this.reactiveValueOps = reactiveRedisTemplate.opsForValue();
-        this.TOKEN_LENGTH = TOKEN_LENGTH;
+        this.userCache = userCache;
+        this.userLookupCoalescer = userLookupCoalescer;
+        this.userView = userView;
+        this.userChangePublisher = userChangePublisher;
+        this.verificationTokenStore = verificationTokenStore;
+        this.signedVerificationTokens = signedVerificationTokens;
+        this.EMAIL_VERIFICATION_MODE = emailVerificationProperties.getMode();
+        this.otpGenerator = otpGenerator;
+        this.tokenGenerator = tokenGenerator;
         this.TOKEN_EXPIRATION_TIME = TOKEN_EXPIRATION_TIME;
         this.kafkaTemplate = kafkaTemplate;
+        this.blockingExecutor = blockingExecutor;
+        this.backendGuard = backendGuard;
+        this.metrics = metrics;
         this.objectMapper = new AtomicReference<>(objectMapper);
         this.environment = environment;
+        this.validator = validator;
+        this.BULK_BATCH_SIZE = BULK_BATCH_SIZE;
+        this.BATCH_LOOKUP_MAX_KEYS = BATCH_LOOKUP_MAX_KEYS;
+        this.EXPORT_BATCH_SIZE = EXPORT_BATCH_SIZE;
+        this.EXPORT_CURSOR_TTL = EXPORT_CURSOR_TTL;
+        this.SEARCH_MAX_PAGE_SIZE = SEARCH_MAX_PAGE_SIZE;
+        this.SEARCH_MAX_RESULTS = SEARCH_MAX_RESULTS;
+        this.SEARCH_TIMEOUT = SEARCH_TIMEOUT;
     }
 
     @Override
     public Mono<User> createUser(UserDto userDto) {
-        return Mono.fromCallable(() -> {
-            User user = User.builder()
-                    .firstName(userDto.getFirstName())
-                    .lastName(userDto.getLastName())
-                    .email(userDto.getEmail())
-                    .location(userDto.getNationality())
-                    .mobileNo(userDto.getMobileNo())
-                    .build();
+        String operation = "create-user";
+
+        return metrics.operation(operation, null, null,
+                metrics.stage(operation, UserServiceMetrics.REPOSITORY, userRepository.save(mapUserDtoToUser(userDto)))
+                        .flatMap(savedUser -> metrics.stage(operation, UserServiceMetrics.CACHE_INVALIDATE, userCache.invalidate(savedUser))
+                                .then(metrics.stage(operation, UserServiceMetrics.KAFKA_PUBLISH, userChangePublisher.publish(savedUser)))
+                                .thenReturn(savedUser)));
+    }
+
+    @Override
+    public Flux<BulkRegistrationResultDto> createUsers(Flux<UserDto> userDtos) {
+        // concatMap with a prefetch of 1 keeps at most one batch in flight, so upstream is only read as fast as we insert
+        return metrics.operation("create-users", null, null, userDtos.index()
+                .buffer(BULK_BATCH_SIZE)
+                .concatMap(this::createUserBatch, 1));
+    }
+
+    private Flux<BulkRegistrationResultDto> createUserBatch(List<Tuple2<Long, UserDto>> batch) {
+        List<BulkRegistrationResultDto> results = new ArrayList<>(batch.size());
+        List<Long> pendingIndexes = new ArrayList<>(batch.size());
+        List<User> pendingUsers = new ArrayList<>(batch.size());
+        Set<String> batchEmails = new HashSet<>();
+        Set<String> batchMobileNos = new HashSet<>();
+
+        for (Tuple2<Long, UserDto> indexedUserDto : batch) {
+            long index = indexedUserDto.getT1();
+            UserDto userDto = indexedUserDto.getT2();
+
+            Set<ConstraintViolation<UserDto>> violations = validator.validate(userDto);
+            if (!violations.isEmpty()) {
+                String error = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .collect(Collectors.joining(", "));
+                results.add(BulkRegistrationResultDto.builder().index(index).status(RegistrationStatus.INVALID).error(error).build());
+            } else if (!batchEmails.add(userDto.getEmail()) || !batchMobileNos.add(userDto.getMobileNo())) {
+                results.add(BulkRegistrationResultDto.builder().index(index).status(RegistrationStatus.DUPLICATE)
+                        .error("Duplicate email or mobile number in batch").build());
+            } else {
+                pendingIndexes.add(index);
+                pendingUsers.add(mapUserDtoToUser(userDto));
+            }
+        }
+
+        if (pendingUsers.isEmpty()) {
+            return Flux.fromIterable(results);
+        }
+
+        return metrics.stage("create-users", UserServiceMetrics.REPOSITORY, userRepository.saveAll(pendingUsers))
+                .collectList()
+                .flatMapMany(insertResults -> {
+                    Iterator<Long> indexes = pendingIndexes.iterator();
+                    for (InsertResult insertResult : insertResults) {
+                        results.add(mapInsertResultToBulkRegistrationResultDto(indexes.next(), insertResult));
+                    }
+                    return Flux.fromIterable(insertResults)
+                            .filter(InsertResult::isSaved)
+                            .flatMap(insertResult -> userChangePublisher.publish(insertResult.getUser()))
+                            .thenMany(Flux.fromIterable(results));
+                })
+                .onErrorResume(e -> {
+                    log.error("Unable to insert batch of {} users", pendingUsers.size(), e);
+                    pendingIndexes.forEach(index -> results.add(BulkRegistrationResultDto.builder()
+                            .index(index).status(RegistrationStatus.FAILED).error(e.getMessage()).build()));
+                    return Flux.fromIterable(results);
+                });
+    }
 
-            return userRepository.save(user);
-        });
+    private BulkRegistrationResultDto mapInsertResultToBulkRegistrationResultDto(long index, InsertResult insertResult) {
+        if (insertResult.isSaved()) {
+            return BulkRegistrationResultDto.builder().index(index).status(RegistrationStatus.CREATED).id(insertResult.getUser().getId()).build();
+        }
+        return BulkRegistrationResultDto.builder()
+                .index(index)
+                .status(insertResult.isDuplicate() ? RegistrationStatus.DUPLICATE : RegistrationStatus.FAILED)
+                .error(insertResult.getErrorMessage())
+                .build();
+    }
+
+    private User mapUserDtoToUser(UserDto userDto) {
+        return User.builder()
+                .firstName(userDto.getFirstName())
+                .lastName(userDto.getLastName())
+                .email(userDto.getEmail())
+                .location(userDto.getNationality())
+                .mobileNo(userDto.getMobileNo())
+                .build();
     }
 
     @Override
     public Mono<Optional<User>> getUserById(String id) {
-        return Mono.fromCallable(() -> userRepository.findById(id));
+        return metrics.operation("get-user-by-id", null, null,
+                userLookupCoalescer.lookup(UserLookupCoalescer.ID, id,
+                                () -> userView.findById(id).switchIfEmpty(Mono.defer(() -> userCache.findById(id))))
+                        .map(Optional::of).defaultIfEmpty(Optional.empty()), this::lookupOutcome);
     }
 
     @Override
     public Mono<Optional<User>> getUserByEmail(String email) {
-        return Mono.fromCallable(() -> userRepository.findByEmail(email));
+        return metrics.operation("get-user-by-email", null, null,
+                userLookupCoalescer.lookup(UserLookupCoalescer.EMAIL, email,
+                                () -> userView.findByEmail(email).switchIfEmpty(Mono.defer(() -> userCache.findByEmail(email))))
+                        .map(Optional::of).defaultIfEmpty(Optional.empty()), this::lookupOutcome);
     }
 
     @Override
     public Mono<Optional<User>> getUserByMobileNo(String mobileNo) {
-        return Mono.fromCallable(() -> userRepository.findByMobileNo(mobileNo));
+        return metrics.operation("get-user-by-mobile-no", null, null,
+                userLookupCoalescer.lookup(UserLookupCoalescer.MOBILE_NO, mobileNo,
+                                () -> userView.findByMobileNo(mobileNo).switchIfEmpty(Mono.defer(() -> userCache.findByMobileNo(mobileNo))))
+                        .map(Optional::of).defaultIfEmpty(Optional.empty()), this::lookupOutcome);
+    }
+
+    private String lookupOutcome(Optional<User> user) {
+        return user.isPresent() ? "found" : "not-found";
     }
 
     @Override
-    public Mono<Boolean> generateVerificationEmail(String email, VerificationMethod verificationMethod) {
-        return Mono.fromCallable(() -> {
-                    log.info("Generate verification email: {}", email);
+    public Mono<Map<String, Optional<User>>> getUsersByIds(Collection<String> ids, UserFields fields) {
+        List<String> attributes = fields.attributes("_key");
+        return getUsersByKeys("get-users-by-ids", ids, keys -> userRepository.findAllByIds(keys, attributes), User::getId);
+    }
 
-                    Optional<User> userOptional = userRepository.findByEmail(email);
+    @Override
+    public Mono<Map<String, Optional<User>>> getUsersByEmails(Collection<String> emails, UserFields fields) {
+        List<String> attributes = fields.attributes("email");
+        return getUsersByKeys("get-users-by-emails", emails, keys -> userRepository.findAllByEmails(keys, attributes), User::getEmail);
+    }
 
-                    if (userOptional.isPresent()) {
-                        return Mono.just(userOptional.get());
-                    } else {
-                        return Mono.error(new UserNotFoundException("User not found"));
-                    }
-                })
-                .cast(User.class)
+    @Override
+    public Mono<Map<String, Optional<User>>> getUsersByMobileNos(Collection<String> mobileNos, UserFields fields) {
+        List<String> attributes = fields.attributes("mobileNo");
+        return getUsersByKeys("get-users-by-mobile-nos", mobileNos, keys -> userRepository.findAllByMobileNos(keys, attributes), User::getMobileNo);
+    }
+
+    /**
+     * Resolves all keys of one type with a single query. Every requested key is present in the result, in request order,
+     * with {@link Optional#empty()} for keys that did not match a user.
+     */
+    private Mono<Map<String, Optional<User>>> getUsersByKeys(String operation,
+                                                            Collection<String> keys,
+                                                            Function<Collection<String>, Flux<User>> finder,
+                                                            Function<User, String> keyGetter) {
+        if (keys == null || keys.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+
+        Set<String> distinctKeys = new LinkedHashSet<>(keys);
+        if (distinctKeys.size() > BATCH_LOOKUP_MAX_KEYS) {
+            return Mono.error(new GetUserException("Too many keys requested, maximum is " + BATCH_LOOKUP_MAX_KEYS));
+        }
+
+        return metrics.operation(operation, null, null,
+                metrics.stage(operation, UserServiceMetrics.REPOSITORY, finder.apply(distinctKeys))
+                        .collectMap(keyGetter)
+                        .map(foundUsers -> {
+                            Map<String, Optional<User>> users = new LinkedHashMap<>();
+                            distinctKeys.forEach(key -> users.put(key, Optional.ofNullable(foundUsers.get(key))));
+                            return users;
+                        }));
+    }
+
+    @Override
+    public Mono<Boolean> generateVerificationEmail(String email, VerificationMethod verificationMethod) {
+        log.info("Generate verification email: {}", email);
+        String operation = "generate-verification";
+
+        Mono<Boolean> generateVerificationEmail = metrics.stage(operation, UserServiceMetrics.USER_LOOKUP,
+                        userLookupCoalescer.lookup(UserLookupCoalescer.EMAIL, email, () -> userCache.findByEmail(email)))
+                .switchIfEmpty(Mono.error(new UserNotFoundException("User not found")))
                 .flatMap(user -> {
+                    if (verificationMethod.equals(VerificationMethod.TOKEN) && EMAIL_VERIFICATION_MODE == EmailVerificationMode.SIGNED) {
+                        return Mono.just(signedVerificationTokens.issue(user.getId(), VerificationType.EMAIL, Duration.ofMillis(TOKEN_EXPIRATION_TIME)));
+                    }
                     if (verificationMethod.equals(VerificationMethod.TOKEN)) {
-                        String token = UUID.randomUUID().toString();
+                        String token = tokenGenerator.generate();
 
-                        return reactiveValueOps.set(user.getId(), token,
-                                Duration.ofMillis(TOKEN_EXPIRATION_TIME)).flatMap(response -> Mono.just(token));
+                        return metrics.stage(operation, UserServiceMetrics.TOKEN_STORE,
+                                verificationTokenStore.store(user.getId(), VerificationType.EMAIL, verificationMethod, token,
+                                        Duration.ofMillis(TOKEN_EXPIRATION_TIME))).thenReturn(token);
                     }
                     return Mono.error(new UnsupportedOperationException("Verification method not supported"));
                 })
@@ -131,49 +371,50 @@ public class UserServiceImpl implements UserService {
                             .build();
 
                     // Send to Email microservice
-                    return convertMonoObjectToString(sendEmailRequest).handle((sendEmailRequestString, sink) -> {
-                        kafkaTemplate.send("email.send", sendEmailRequestString);
-                        sink.next(true);
-                    }).onErrorReturn(false);
+                    return metrics.stage(operation, UserServiceMetrics.SERIALIZATION, convertMonoObjectToString(sendEmailRequest))
+                            .flatMap(sendEmailRequestString -> metrics.stage(operation, UserServiceMetrics.KAFKA_PUBLISH,
+                                    publish("email.send", sendEmailRequestString)))
+                            .thenReturn(true)
+                            .onErrorReturn(false);
                 })
-                .cast(Boolean.class)
+                .cast(Boolean.class);
+
+        return metrics.operation(operation, VerificationType.EMAIL, verificationMethod, generateVerificationEmail,
+                        sent -> sent ? "success" : "not-sent")
                 .onErrorReturn(false);
     }
 
     @Override
     public Mono<OTPResponse> generateVerificationMobileNo(String mobileNo, VerificationMethod verificationMethod) {
-        return Mono.fromCallable(() -> {
-                    log.info("Generate verification mobile no: {}", mobileNo);
-                    Optional<User> userOptional = userRepository.findByMobileNo(mobileNo);
-                    if (userOptional.isPresent()) {
-                        return Mono.just(userOptional.get());
-                    } else {
-                        return Mono.error(new UserNotFoundException("User not found"));
-                    }
-                })
-                .cast(User.class)
+        log.info("Generate verification mobile no: {}", mobileNo);
+        String operation = "generate-verification";
+
+        Mono<OTPResponse> generateVerificationMobileNo = metrics.stage(operation, UserServiceMetrics.USER_LOOKUP,
+                        userLookupCoalescer.lookup(UserLookupCoalescer.MOBILE_NO, mobileNo, () -> userCache.findByMobileNo(mobileNo)))
+                .switchIfEmpty(Mono.error(new UserNotFoundException("User not found")))
                 .flatMap(user -> {
                     // Generate verification code (OTP)
-                    Random random = new Random();
-                    int otpNumber = random.nextInt((int) (Math.pow(10, TOKEN_LENGTH)));
+                    String otp = otpGenerator.generate();
 
                     long otpExpiryDuration = Duration.ofMillis(TOKEN_EXPIRATION_TIME).toMinutes();
                     ZonedDateTime expiryTime = ZonedDateTime.now().plusMinutes(otpExpiryDuration);
-                    String content = "Your OTP is " + otpNumber + ". Please use this within " + otpExpiryDuration + " minutes. ";
+                    String content = "Your OTP is " + otp + ". Please use this within " + otpExpiryDuration + " minutes. ";
 
                     SendMobileNumberSMSRequest sendMobileNumberSMSRequest = SendMobileNumberSMSRequest.builder()
                             .mobileNo(user.getMobileNo())
                             .content(content)
                             .build();
 
-                    return convertMonoObjectToString(sendMobileNumberSMSRequest)
-                            .handle((sendMobileNumberSMSRequestString, sink) -> {
-                                reactiveValueOps.set(user.getId(), String.valueOf(otpNumber), Duration.ofMillis(TOKEN_EXPIRATION_TIME));
-                                kafkaTemplate.send("mobile.send", sendMobileNumberSMSRequestString);
+                    return metrics.stage(operation, UserServiceMetrics.TOKEN_STORE,
+                                    verificationTokenStore.store(user.getId(), VerificationType.MOBILE_NUMBER, verificationMethod,
+                                            otp, Duration.ofMillis(TOKEN_EXPIRATION_TIME)))
+                            .then(metrics.stage(operation, UserServiceMetrics.SERIALIZATION, convertMonoObjectToString(sendMobileNumberSMSRequest)))
+                            .flatMap(sendMobileNumberSMSRequestString -> metrics.stage(operation, UserServiceMetrics.KAFKA_PUBLISH,
+                                    publish("mobile.send", sendMobileNumberSMSRequestString)))
+                            .thenReturn(OTPResponse.builder().expiry(expiryTime).build());
+                });
 
-                                sink.next(OTPResponse.builder().otp(String.valueOf(otpNumber)).expiry(expiryTime).build());
-                            });
-                }).cast(OTPResponse.class);
+        return metrics.operation(operation, VerificationType.MOBILE_NUMBER, verificationMethod, generateVerificationMobileNo);
     }
 
     @Override
@@ -186,25 +427,140 @@ public class UserServiceImpl implements UserService {
         return verify(token, VerificationType.MOBILE_NUMBER, verificationMethod);
     }
 
+    /**
+     * Streams all users in key order, starting after {@code afterId} to resume an interrupted export. Each page is one
+     * query continuing from the last key of the previous page. The next page is only fetched once the subscriber has
+     * consumed the current one, so memory stays bounded by the batch size whatever the collection size.
+     */
+    @Override
+    public Flux<User> exportUsers(String afterId) {
+        String operation = "export-users";
+
+        return metrics.operation(operation, null, null, exportPage(operation, afterId)
+                .expand(page -> page.size() < EXPORT_BATCH_SIZE ? Mono.empty() : exportPage(operation, page.get(page.size() - 1).getId()))
+                .concatMapIterable(Function.identity()));
+    }
+
+    /**
+     * Typeahead search, every whitespace separated term has to match the start of a word in one of the searchable fields,
+     * see {@link #searchTerms(String)}. Pages are capped by
+     * {@code user.search.max-results} since deep offsets cost as much as reading every result before them, and the query
+     * is aborted once it exceeds {@code user.search.timeout}.
+     */
+    @Override
+    public Flux<User> searchUsers(String query, int page, int size) {
+        List<String> terms = searchTerms(query);
+
+        if (terms.size() > ReactiveUserRepository.SEARCH_MAX_TERMS) {
+            return Flux.error(new GetUserException("Too many search terms, maximum is " + ReactiveUserRepository.SEARCH_MAX_TERMS));
+        }
+        if (page < 0 || size < 1 || size > SEARCH_MAX_PAGE_SIZE) {
+            return Flux.error(new GetUserException("Page size must be between 1 and " + SEARCH_MAX_PAGE_SIZE));
+        }
+        if ((long) (page + 1) * size > SEARCH_MAX_RESULTS) {
+            return Flux.error(new GetUserException("Only the first " + SEARCH_MAX_RESULTS + " results can be paged through, refine the search"));
+        }
+        if (terms.isEmpty()) {
+            return Flux.empty();
+        }
+
+        String operation = "search-users";
+
+        return metrics.operation(operation, null, null,
+                metrics.stage(operation, UserServiceMetrics.REPOSITORY, userRepository.search(terms, page * size, size, SEARCH_TIMEOUT))
+                        .timeout(SEARCH_TIMEOUT)
+                        .onErrorMap(TimeoutException.class, timeoutException -> new SearchTimeoutException("Search did not complete within " + SEARCH_TIMEOUT)));
+    }
+
+    /**
+     * Splits a search query into terms the search view can match. Terms shorter than the shortest indexed prefix cannot
+     * match anything and are dropped. Longer terms are cut to the longest indexed prefix, since a term that is a strict
+     * prefix of a word but longer than every prefix indexed for it would match nothing while the user is still typing.
+     * Lengths count code points.
+     */
+    static List<String> searchTerms(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        return Arrays.stream(query.trim().split("\\s+"))
+                .filter(term -> term.codePointCount(0, term.length()) >= UserSearchViewManager.MIN_PREFIX_LENGTH)
+                .map(term -> term.codePointCount(0, term.length()) > UserSearchViewManager.MAX_PREFIX_LENGTH
+                        ? term.substring(0, term.offsetByCodePoints(0, UserSearchViewManager.MAX_PREFIX_LENGTH))
+                        : term)
+                .collect(Collectors.toList());
+    }
+
+    private Mono<List<User>> exportPage(String operation, String afterId) {
+        return metrics.stage(operation, UserServiceMetrics.REPOSITORY, userRepository.findPageAfter(afterId, EXPORT_BATCH_SIZE, EXPORT_CURSOR_TTL))
+                .collectList();
+    }
+
+    /**
+     * Keeps the latest receipt per recipient, so one query updates each user at most once, then evicts the updated
+     * users from the cache.
+     */
+    @Override
+    public Mono<Long> applyDeliveryReceipts(VerificationType verificationType, List<DeliveryReceipt> receipts) {
+        String operation = "apply-delivery-receipts";
+        Collection<DeliveryReceipt> latestReceipts = receipts.stream()
+                .collect(Collectors.toMap(DeliveryReceipt::getRecipient, Function.identity(),
+                        (first, second) -> second.getTimestamp() >= first.getTimestamp() ? second : first,
+                        LinkedHashMap::new))
+                .values();
+
+        return metrics.operation(operation, verificationType, null,
+                metrics.stage(operation, UserServiceMetrics.REPOSITORY, userRepository.updateDeliveryStatus(verificationType, latestReceipts))
+                        .flatMap(user -> metrics.stage(operation, UserServiceMetrics.CACHE_INVALIDATE, userCache.invalidate(user))
+                                .then(metrics.stage(operation, UserServiceMetrics.KAFKA_PUBLISH, userChangePublisher.publish(user)))
+                                .thenReturn(user))
+                        .count());
+    }
+
     private Mono<Boolean> verify(String token, VerificationType verificationType, VerificationMethod verificationMethod) {
-        return Mono.fromCallable(() -> {
-                    UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-                    UserDetails userDetails = (UserDetails) usernamePasswordAuthenticationToken.getPrincipal();
-
-                    Optional<User> userOptional = userRepository.findById(userDetails.getUsername());
-                    if (userOptional.isPresent()) {
-                        return userOptional.get();
-                    } else {
-                        throw new UserNotFoundException("User not found");
-                    }
-                })
-                .cast(User.class)
-                .flatMap(user -> reactiveValueOps.get(user.getId())).cast(String.class)
-                .flatMap(existingOtp -> Mono.just(token.equals(existingOtp)))
+        String operation = "verify";
+        Mono<String> authenticatedUserId = ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName);
+
+        Mono<VerificationResult> verify;
+        if (isSigned(verificationType, verificationMethod)) {
+            verify = authenticatedUserId
+                    .switchIfEmpty(Mono.error(new UserNotFoundException("User not found")))
+                    .flatMap(id -> metrics.stage(operation, UserServiceMetrics.TOKEN_CONSUME,
+                            signedVerificationTokens.verify(token, id, verificationType)));
+        } else {
+            verify = authenticatedUserId
+                    .flatMap(id -> metrics.stage(operation, UserServiceMetrics.USER_LOOKUP, userCache.findById(id)))
+                    .switchIfEmpty(Mono.error(new UserNotFoundException("User not found")))
+                    .flatMap(user -> metrics.stage(operation, UserServiceMetrics.TOKEN_CONSUME,
+                            verificationTokenStore.consume(user.getId(), verificationType, verificationMethod, token)));
+        }
+
+        return metrics.operation(operation, verificationType, verificationMethod, verify,
+                        verificationResult -> verificationResult.name().toLowerCase())
+                .map(VerificationResult.VERIFIED::equals)
                 .onErrorReturn(false);
     }
 
-    private String generateLink(String api, String token) {
+    /**
+     * {@link KafkaTemplate#send} blocks while it waits for topic metadata or buffer space, so the call itself is
+     * offloaded and only the broker acknowledgement is awaited reactively.
+     */
+    private Mono<SendResult<String, String>> publish(String topic, String message) {
+        return backendGuard.call(BackendDependency.KAFKA, blockingExecutor.call("kafka-send", () -> kafkaTemplate.send(topic, message))
+                .flatMap(sendFuture -> Mono.fromFuture(sendFuture.completable())));
+    }
+
+    /**
+     * Signed email tokens are verified locally, without looking up the user or a stored token.
+     */
+    private boolean isSigned(VerificationType verificationType, VerificationMethod verificationMethod) {
+        return EMAIL_VERIFICATION_MODE == EmailVerificationMode.SIGNED
+                && verificationType == VerificationType.EMAIL
+                && verificationMethod == VerificationMethod.TOKEN;
+    }
+
+    String generateLink(String api, String token) {
         String link = String.format("https://%s:%s/auth/verify-%s?token=%s",
                 environment.getProperty("java.rmi.server.hostname"),
                 environment.getProperty("local.server.port"),
@@ -214,7 +570,7 @@ public class UserServiceImpl implements UserService {
         return link;
     }
 
-    private Mono<String> convertMonoObjectToString(Object object) {
+    Mono<String> convertMonoObjectToString(Object object) {
         return Mono.create((monoSink) -> {
             try {
                 monoSink.success(objectMapper.get().writeValueAsString(object));
@@ -0,0 +1,283 @@
+package com.awpghost.user.services.cache;
+
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.persistence.models.User;
+import com.awpghost.user.persistence.repositories.ReactiveUserRepository;
+import com.awpghost.user.services.execution.BlockingExecutor;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for {@link User} lookups.
+ * <p>
+ * L1 is a bounded in-process cache, L2 is Redis. Users are stored by id, email and mobile number only point to the id.
+ * Invalidations are published on {@link #INVALIDATION_TOPIC} so every replica drops its L1 entries.
+ */
+@Log4j2
+@Component
+public class UserCache {
+    public static final String INVALIDATION_TOPIC = "user.cache.invalidate";
+
+    private static final String KEY_PREFIX = "user:cache:";
+
+    private final ReactiveUserRepository userRepository;
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final ReactiveValueOperations<String, String> reactiveValueOps;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final BlockingExecutor blockingExecutor;
+
+    private final BackendGuard backendGuard;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final Duration l2TimeToLive;
+
+    private final Cache<String, User> users;
+
+    private final Cache<String, String> secondaryKeys;
+
+    private final Counter l1Hits;
+
+    private final Counter l1Misses;
+
+    private final Counter l2Hits;
+
+    private final Counter l2Misses;
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public UserCache(ReactiveUserRepository userRepository,
+                     ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                     KafkaTemplate<String, String> kafkaTemplate,
+                     BlockingExecutor blockingExecutor,
+                     BackendGuard backendGuard,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry,
+                     @Value("${user.cache.enabled:true}") boolean enabled,
+                     @Value("${user.cache.l1.maximum-size:10000}") long l1MaximumSize,
+                     @Value("${user.cache.l1.time-to-live:60s}") Duration l1TimeToLive,
+                     @Value("${user.cache.l2.time-to-live:10m}") Duration l2TimeToLive) {
+        this.userRepository = userRepository;
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.reactiveValueOps = reactiveStringRedisTemplate.opsForValue();
+        this.kafkaTemplate = kafkaTemplate;
+        this.blockingExecutor = blockingExecutor;
+        this.backendGuard = backendGuard;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.l2TimeToLive = l2TimeToLive;
+
+        this.users = Caffeine.newBuilder()
+                .maximumSize(l1MaximumSize)
+                .expireAfterWrite(l1TimeToLive)
+                .removalListener((String key, User user, RemovalCause cause) -> recordEviction(cause))
+                .build();
+        this.secondaryKeys = Caffeine.newBuilder()
+                .maximumSize(l1MaximumSize * 2)
+                .expireAfterWrite(l1TimeToLive)
+                .removalListener((String key, String id, RemovalCause cause) -> recordEviction(cause))
+                .build();
+
+        this.l1Hits = meterRegistry.counter("user.cache.requests", "tier", "l1", "result", "hit");
+        this.l1Misses = meterRegistry.counter("user.cache.requests", "tier", "l1", "result", "miss");
+        this.l2Hits = meterRegistry.counter("user.cache.requests", "tier", "l2", "result", "hit");
+        this.l2Misses = meterRegistry.counter("user.cache.requests", "tier", "l2", "result", "miss");
+        meterRegistry.gaugeMapSize("user.cache.size", List.of(), users.asMap());
+    }
+
+    public Mono<User> findById(String id) {
+        if (!enabled) {
+            return userRepository.findById(id);
+        }
+
+        User user = users.getIfPresent(id);
+        if (user != null) {
+            l1Hits.increment();
+            return Mono.just(user);
+        }
+        l1Misses.increment();
+
+        return readFromRedis(idKey(id))
+                .flatMap(json -> Mono.fromCallable(() -> objectMapper.readValue(json, User.class)))
+                .doOnNext(this::putLocal)
+                .onErrorResume(e -> {
+                    log.warn("Unable to read user {} from Redis cache", id, e);
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> userRepository.findById(id).flatMap(this::put)));
+    }
+
+    public Mono<User> findByEmail(String email) {
+        return findBySecondaryKey("email", email, User::getEmail, userRepository::findByEmail);
+    }
+
+    public Mono<User> findByMobileNo(String mobileNo) {
+        return findBySecondaryKey("mobileNo", mobileNo, User::getMobileNo, userRepository::findByMobileNo);
+    }
+
+    /**
+     * Drops the user from L1 and L2, and asks every other replica to drop it from their L1.
+     */
+    public Mono<Void> invalidate(User user) {
+        UserCacheInvalidation userCacheInvalidation = UserCacheInvalidation.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .mobileNo(user.getMobileNo())
+                .build();
+
+        evictLocal(userCacheInvalidation);
+
+        if (!enabled) {
+            return Mono.empty();
+        }
+
+        Mono<Long> deleteFromRedis = backendGuard.call(BackendDependency.REDIS,
+                reactiveStringRedisTemplate.delete(Flux.fromIterable(redisKeys(userCacheInvalidation))));
+        Mono<Void> publish = Mono.fromCallable(() -> objectMapper.writeValueAsString(userCacheInvalidation))
+                .flatMap(message -> backendGuard.call(BackendDependency.KAFKA,
+                        blockingExecutor.call("kafka-send", () -> kafkaTemplate.send(INVALIDATION_TOPIC, user.getId(), message))
+                                .flatMap(sendFuture -> Mono.fromFuture(sendFuture.completable()))))
+                .then();
+
+        return deleteFromRedis.then(publish)
+                .onErrorResume(e -> {
+                    log.error("Unable to invalidate cached user {}", user.getId(), e);
+                    return Mono.empty();
+                });
+    }
+
+    void evictLocal(UserCacheInvalidation userCacheInvalidation) {
+        meterRegistry.counter("user.cache.invalidations").increment();
+
+        if (StringUtils.hasText(userCacheInvalidation.getId())) {
+            users.invalidate(userCacheInvalidation.getId());
+        }
+        if (StringUtils.hasText(userCacheInvalidation.getEmail())) {
+            secondaryKeys.invalidate(secondaryKey("email", userCacheInvalidation.getEmail()));
+        }
+        if (StringUtils.hasText(userCacheInvalidation.getMobileNo())) {
+            secondaryKeys.invalidate(secondaryKey("mobileNo", userCacheInvalidation.getMobileNo()));
+        }
+    }
+
+    private Mono<User> findBySecondaryKey(String attribute, String value, Function<User, String> getter, Function<String, Mono<User>> loader) {
+        if (!enabled) {
+            return loader.apply(value);
+        }
+
+        String key = secondaryKey(attribute, value);
+        String id = secondaryKeys.getIfPresent(key);
+
+        Mono<String> idMono;
+        if (id != null) {
+            l1Hits.increment();
+            idMono = Mono.just(id);
+        } else {
+            l1Misses.increment();
+            idMono = readFromRedis(key)
+                    .doOnNext(cachedId -> secondaryKeys.put(key, cachedId))
+                    .onErrorResume(e -> {
+                        log.warn("Unable to read user {} {} from Redis cache", attribute, value, e);
+                        return Mono.empty();
+                    });
+        }
+
+        // The pointer may be stale if the attribute moved to another user, so the resolved user is checked again.
+        return idMono.flatMap(this::findById)
+                .filter(user -> value.equals(getter.apply(user)))
+                .switchIfEmpty(Mono.defer(() -> loader.apply(value).flatMap(this::put)));
+    }
+
+    private Mono<String> readFromRedis(String key) {
+        return backendGuard.call(BackendDependency.REDIS, reactiveValueOps.get(key))
+                .doOnSuccess(value -> (value == null ? l2Misses : l2Hits).increment());
+    }
+
+    private Mono<User> put(User user) {
+        putLocal(user);
+
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(user))
+                .flatMapMany(json -> {
+                    List<Mono<Boolean>> writes = new ArrayList<>();
+                    writes.add(reactiveValueOps.set(idKey(user.getId()), json, l2TimeToLive));
+                    if (StringUtils.hasText(user.getEmail())) {
+                        writes.add(reactiveValueOps.set(secondaryKey("email", user.getEmail()), user.getId(), l2TimeToLive));
+                    }
+                    if (StringUtils.hasText(user.getMobileNo())) {
+                        writes.add(reactiveValueOps.set(secondaryKey("mobileNo", user.getMobileNo()), user.getId(), l2TimeToLive));
+                    }
+                    return backendGuard.call(BackendDependency.REDIS, Flux.merge(writes));
+                })
+                .then(Mono.just(user))
+                .onErrorResume(e -> {
+                    log.warn("Unable to write user {} to Redis cache", user.getId(), e);
+                    return Mono.just(user);
+                });
+    }
+
+    private void putLocal(User user) {
+        users.put(user.getId(), user);
+        if (StringUtils.hasText(user.getEmail())) {
+            secondaryKeys.put(secondaryKey("email", user.getEmail()), user.getId());
+        }
+        if (StringUtils.hasText(user.getMobileNo())) {
+            secondaryKeys.put(secondaryKey("mobileNo", user.getMobileNo()), user.getId());
+        }
+    }
+
+    private void recordEviction(RemovalCause cause) {
+        if (cause.wasEvicted()) {
+            meterRegistry.counter("user.cache.evictions", "tier", "l1", "cause", cause.name().toLowerCase()).increment();
+        }
+    }
+
+    private List<String> redisKeys(UserCacheInvalidation userCacheInvalidation) {
+        List<String> keys = new ArrayList<>();
+        if (StringUtils.hasText(userCacheInvalidation.getId())) {
+            keys.add(idKey(userCacheInvalidation.getId()));
+        }
+        if (StringUtils.hasText(userCacheInvalidation.getEmail())) {
+            keys.add(secondaryKey("email", userCacheInvalidation.getEmail()));
+        }
+        if (StringUtils.hasText(userCacheInvalidation.getMobileNo())) {
+            keys.add(secondaryKey("mobileNo", userCacheInvalidation.getMobileNo()));
+        }
+        return keys;
+    }
+
+    private static String idKey(String id) {
+        return KEY_PREFIX + "id:" + id;
+    }
+
+    private static String secondaryKey(String attribute, String value) {
+        return KEY_PREFIX + attribute + ":" + value;
+    }
+}
@@ -0,0 +1,16 @@
+package com.awpghost.user.services.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCacheInvalidation {
+    private String id;
+    private String email;
+    private String mobileNo;
+}
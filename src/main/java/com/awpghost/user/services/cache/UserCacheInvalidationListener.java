@@ -0,0 +1,55 @@
+package com.awpghost.user.services.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Evicts the local (L1) user cache when any replica invalidates a user.
+ * Every instance is assigned all partitions of the topic instead of joining a consumer group, so each invalidation
+ * reaches all replicas. Only invalidations published while the instance runs matter, so it starts from the end of each
+ * partition. The group id is shared and stable, it only names the offsets the container commits.
+ */
+@Log4j2
+@Component
+public class UserCacheInvalidationListener extends AbstractConsumerSeekAware {
+
+    private final UserCache userCache;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public UserCacheInvalidationListener(UserCache userCache, ObjectMapper objectMapper) {
+        this.userCache = userCache;
+        this.objectMapper = objectMapper;
+    }
+
+    public static String[] partitions(int partitionCount) {
+        return IntStream.range(0, partitionCount).mapToObj(String::valueOf).toArray(String[]::new);
+    }
+
+    @KafkaListener(groupId = "${spring.application.name}-cache",
+            topicPartitions = @org.springframework.kafka.annotation.TopicPartition(topic = UserCache.INVALIDATION_TOPIC,
+                    partitions = "#{T(com.awpghost.user.services.cache.UserCacheInvalidationListener).partitions(${user.cache.invalidation.partitions:1})}"))
+    public void onInvalidation(String message) {
+        try {
+            userCache.evictLocal(objectMapper.readValue(message, UserCacheInvalidation.class));
+        } catch (JsonProcessingException e) {
+            log.error("Unable to read user cache invalidation: {}", message, e);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        super.onPartitionsAssigned(assignments, callback);
+        callback.seekToEnd(assignments.keySet());
+    }
+}
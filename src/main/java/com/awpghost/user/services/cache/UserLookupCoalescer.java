@@ -0,0 +1,112 @@
+package com.awpghost.user.services.cache;
+
+import com.awpghost.user.persistence.models.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collapses identical user lookups. Concurrent lookups of the same key share one in-flight {@link Mono}, which is
+ * forgotten as soon as it completes, so results are never served past the lookup that produced them.
+ * <p>
+ * Chains wrapped in {@link #sharedLookups()} also remember the users they found, under each of their keys, and a later
+ * lookup in the same chain is answered from there. Only use it on chains that do not modify the users they look up.
+ * <p>
+ * Every lookup counts towards {@code user.lookup.coalescing}, tagged with the key type and whether it was
+ * {@code executed}, {@code coalesced} onto an in-flight lookup or {@code reused} from earlier in the chain.
+ */
+@Component
+public class UserLookupCoalescer {
+
+    public static final String ID = "id";
+
+    public static final String EMAIL = "email";
+
+    public static final String MOBILE_NO = "mobileNo";
+
+    private static final String SHARED_LOOKUPS = UserLookupCoalescer.class.getName() + ".sharedLookups";
+
+    private final Map<String, Mono<User>> inFlight = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public UserLookupCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("user.lookup.in-flight", inFlight, Map::size)
+                .description("Distinct user lookups in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scope in which found users are remembered, apply with {@link Mono#contextWrite(Function)} at the end of the chain.
+     */
+    public static Function<Context, Context> sharedLookups() {
+        return context -> context.hasKey(SHARED_LOOKUPS) ? context : context.put(SHARED_LOOKUPS, new ConcurrentHashMap<String, User>());
+    }
+
+    public Mono<User> lookup(String keyType, String key, Supplier<Mono<User>> loader) {
+        String lookupKey = keyType + ':' + key;
+
+        return Mono.deferContextual(context -> {
+            Optional<Map<String, User>> sharedLookups = context.getOrEmpty(SHARED_LOOKUPS);
+            User found = sharedLookups.map(users -> users.get(lookupKey)).orElse(null);
+            if (found != null) {
+                counter(keyType, "reused").increment();
+                return Mono.just(found);
+            }
+
+            Mono<User> lookup = inFlight(lookupKey, keyType, loader);
+            return sharedLookups.map(users -> lookup.doOnNext(user -> remember(users, user))).orElse(lookup);
+        });
+    }
+
+    private Mono<User> inFlight(String lookupKey, String keyType, Supplier<Mono<User>> loader) {
+        AtomicBoolean created = new AtomicBoolean();
+
+        Mono<User> lookup = inFlight.computeIfAbsent(lookupKey, ignored -> {
+            created.set(true);
+            AtomicReference<Mono<User>> self = new AtomicReference<>();
+            // cache() keeps the lookup running when its first subscriber cancels, the others still wait for it
+            self.set(Mono.defer(loader)
+                    .doFinally(signalType -> inFlight.remove(lookupKey, self.get()))
+                    .cache());
+            return self.get();
+        });
+
+        counter(keyType, created.get() ? "executed" : "coalesced").increment();
+        return lookup;
+    }
+
+    private static void remember(Map<String, User> users, User user) {
+        if (user.getId() != null) {
+            users.put(ID + ':' + user.getId(), user);
+        }
+        if (user.getEmail() != null) {
+            users.put(EMAIL + ':' + user.getEmail(), user);
+        }
+        if (user.getMobileNo() != null) {
+            users.put(MOBILE_NO + ':' + user.getMobileNo(), user);
+        }
+    }
+
+    private Counter counter(String keyType, String result) {
+        return Counter.builder("user.lookup.coalescing")
+                .description("User lookups by whether they ran, joined an identical lookup in flight or reused an earlier result")
+                .tag("key", keyType)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
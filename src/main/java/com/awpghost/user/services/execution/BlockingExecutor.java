@@ -0,0 +1,107 @@
+package com.awpghost.user.services.execution;
+
+import com.awpghost.user.enums.BlockingExecutionMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single place where blocking calls are run, so they never block a Netty event loop.
+ * <p>
+ * The mode picks where they run: Reactor's bounded elastic scheduler, a dedicated fixed pool with a bounded queue,
+ * or one virtual thread per call (needs a Java 21 runtime). Every call records how long it waited for a thread
+ * ({@code blocking.queue.wait}) and how long it ran ({@code blocking.run}), tagged with the task name and mode.
+ */
+@Log4j2
+@Component
+public class BlockingExecutor {
+    private final BlockingExecutionMode mode;
+
+    private final Scheduler scheduler;
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public BlockingExecutor(MeterRegistry meterRegistry,
+                            @Value("${blocking.execution.mode:bounded-elastic}") BlockingExecutionMode mode,
+                            @Value("${blocking.execution.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors() * 4}}") int poolSize,
+                            @Value("${blocking.execution.queue-capacity:1000}") int queueCapacity) {
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        this.scheduler = createScheduler(mode, poolSize, queueCapacity);
+        log.info("Running blocking calls with mode {}", mode);
+    }
+
+    /**
+     * Runs the callable on the configured scheduler. Callables returning null complete the {@link Mono} empty.
+     */
+    public <T> Mono<T> call(String task, Callable<T> callable) {
+        return Mono.defer(() -> {
+            long submitted = System.nanoTime();
+
+            return Mono.fromCallable(() -> {
+                long started = System.nanoTime();
+                timer("blocking.queue.wait", task).record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return callable.call();
+                } finally {
+                    timer("blocking.run", task).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            }).subscribeOn(scheduler);
+        });
+    }
+
+    @PreDestroy
+    public void dispose() {
+        if (mode != BlockingExecutionMode.BOUNDED_ELASTIC) {
+            scheduler.dispose();
+        }
+    }
+
+    private Timer timer(String name, String task) {
+        return Timer.builder(name)
+                .tag("task", task)
+                .tag("mode", mode.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Scheduler createScheduler(BlockingExecutionMode mode, int poolSize, int queueCapacity) {
+        switch (mode) {
+            case FIXED:
+                ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("user-blocking-"));
+                return Schedulers.fromExecutorService(threadPoolExecutor, "user-blocking");
+            case VIRTUAL:
+                return Schedulers.fromExecutorService(newVirtualThreadPerTaskExecutor(), "user-blocking-virtual");
+            default:
+                return Schedulers.boundedElastic();
+        }
+    }
+
+    /**
+     * Looked up reflectively, so the service still compiles for Java 17 and only the virtual mode needs Java 21.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need a Java 21 or newer runtime, running on " + Runtime.version(), e);
+        }
+    }
+}
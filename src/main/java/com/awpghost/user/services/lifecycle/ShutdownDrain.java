@@ -0,0 +1,159 @@
+package com.awpghost.user.services.lifecycle;
+
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.services.metrics.UserServiceMetrics;
+import com.awpghost.user.services.resilience.BackendGuard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the instance on shutdown without touching state other replicas rely on.
+ * <p>
+ * With {@code server.shutdown=graceful}, the web server first stops accepting requests and waits for active ones. This
+ * lifecycle stops right after it. It waits for service operations still running to finish, flushes pending Kafka sends,
+ * then removes Redis keys under {@code shutdown.redis.cleanup-prefixes}, if any. Those prefixes must only cover keys
+ * this instance owns. Everything has to fit within {@code shutdown.drain.timeout}.
+ */
+@Log4j2
+@Component
+public class ShutdownDrain implements SmartLifecycle {
+    /**
+     * Just below Boot's web server lifecycles (graceful shutdown at {@code Integer.MAX_VALUE}, stop at one less), so the
+     * drain starts once no new requests can arrive.
+     */
+    private static final int PHASE = Integer.MAX_VALUE - 2;
+
+    private static final long CLEANUP_BATCH_SIZE = 500;
+
+    private final UserServiceMetrics userServiceMetrics;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final BackendGuard backendGuard;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration drainTimeout;
+
+    private final List<String> cleanupPrefixes;
+
+    private final Counter cleanedUpKeys;
+
+    private volatile boolean running;
+
+    @Autowired
+    public ShutdownDrain(UserServiceMetrics userServiceMetrics,
+                         KafkaTemplate<String, String> kafkaTemplate,
+                         ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                         BackendGuard backendGuard,
+                         MeterRegistry meterRegistry,
+                         @Value("${shutdown.drain.timeout:20s}") Duration drainTimeout,
+                         @Value("${shutdown.redis.cleanup-prefixes:}") List<String> cleanupPrefixes) {
+        this.userServiceMetrics = userServiceMetrics;
+        this.kafkaTemplate = kafkaTemplate;
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.backendGuard = backendGuard;
+        this.meterRegistry = meterRegistry;
+        this.drainTimeout = drainTimeout;
+        this.cleanupPrefixes = cleanupPrefixes;
+        this.cleanedUpKeys = meterRegistry.counter("shutdown.cleanup.keys");
+        meterRegistry.gauge("shutdown.drain.in-flight", userServiceMetrics, UserServiceMetrics::inFlight);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        long start = System.nanoTime();
+        long deadline = start + drainTimeout.toNanos();
+        log.info("Draining {} in-flight operations", userServiceMetrics.inFlight());
+
+        boolean drained = awaitInFlight(deadline);
+        flushKafka();
+        cleanUpRedis(deadline);
+
+        Timer.builder("shutdown.drain.duration")
+                .tag("outcome", drained ? "drained" : "timed-out")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Drain {} after {} ms", drained ? "completed" : "timed out", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private boolean awaitInFlight(long deadline) {
+        while (userServiceMetrics.inFlight() > 0) {
+            if (System.nanoTime() >= deadline) {
+                log.warn("{} operations still in flight at the drain deadline", userServiceMetrics.inFlight());
+                return false;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void flushKafka() {
+        try {
+            kafkaTemplate.flush();
+        } catch (RuntimeException e) {
+            log.error("Unable to flush pending Kafka sends", e);
+        }
+    }
+
+    private void cleanUpRedis(long deadline) {
+        Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+
+        for (String prefix : cleanupPrefixes) {
+            if (!StringUtils.hasText(prefix)) {
+                continue;
+            }
+            try {
+                // A bulk call, so an open circuit skips the cleanup right away instead of spending the drain deadline
+                Long deleted = backendGuard.bulk(BackendDependency.REDIS,
+                                reactiveStringRedisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(CLEANUP_BATCH_SIZE).build())
+                                        .buffer((int) CLEANUP_BATCH_SIZE)
+                                        .concatMap(keys -> reactiveStringRedisTemplate.unlink(Flux.fromIterable(keys))))
+                        .reduce(0L, Long::sum)
+                        .block(remaining);
+                cleanedUpKeys.increment(deleted == null ? 0 : deleted);
+                log.info("Removed {} Redis keys under {}", deleted, prefix);
+            } catch (RuntimeException e) {
+                log.error("Unable to remove Redis keys under {}", prefix, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.awpghost.user.services.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Latency metrics of {@code UserService} operations and of the stages they are made of.
+ * <ul>
+ *     <li>{@code user.service.requests}: timer per operation, tagged operation, type, method and outcome</li>
+ *     <li>{@code user.service.stage}: timer per stage of an operation, tagged operation, stage and outcome</li>
+ *     <li>{@code user.service.in-flight}: gauge of operations currently running, tagged operation</li>
+ * </ul>
+ * Timers start on subscription. Outcome is {@code success}, {@code empty}, {@code error}, {@code cancelled}, or a value
+ * derived from the result.
+ */
+@Component
+public class UserServiceMetrics {
+    public static final String NONE = "none";
+
+    public static final String USER_LOOKUP = "user-lookup";
+    public static final String REPOSITORY = "repository";
+    public static final String TOKEN_STORE = "token-store";
+    public static final String TOKEN_CONSUME = "token-consume";
+    public static final String CACHE_INVALIDATE = "cache-invalidate";
+    public static final String SERIALIZATION = "serialization";
+    public static final String KAFKA_PUBLISH = "kafka-publish";
+
+    private static final String SUCCESS = "success";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Number of operations currently running, across all operations.
+     */
+    public int inFlight() {
+        return inFlight.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public <T> Mono<T> operation(String operation, Object type, Object method, Mono<T> mono) {
+        return operation(operation, type, method, mono, value -> SUCCESS);
+    }
+
+    public <T> Mono<T> operation(String operation, Object type, Object method, Mono<T> mono, Function<? super T, String> outcomeOf) {
+        return Mono.defer(() -> {
+            AtomicInteger running = inFlight(operation);
+            running.incrementAndGet();
+            long start = System.nanoTime();
+            Function<String, Timer> timer = outcome -> requestTimer(operation, type, method, outcome);
+
+            return record(mono, timer, start, outcomeOf).doFinally(signalType -> running.decrementAndGet());
+        });
+    }
+
+    public <T> Flux<T> operation(String operation, Object type, Object method, Flux<T> flux) {
+        return Flux.defer(() -> {
+            AtomicInteger running = inFlight(operation);
+            running.incrementAndGet();
+            long start = System.nanoTime();
+
+            return flux.doOnComplete(() -> stop(requestTimer(operation, type, method, SUCCESS), start))
+                    .doOnError(e -> stop(requestTimer(operation, type, method, "error"), start))
+                    .doOnCancel(() -> stop(requestTimer(operation, type, method, "cancelled"), start))
+                    .doFinally(signalType -> running.decrementAndGet());
+        });
+    }
+
+    public <T> Mono<T> stage(String operation, String stage, Mono<T> mono) {
+        return Mono.defer(() -> record(mono, outcome -> stageTimer(operation, stage, outcome), System.nanoTime(), value -> SUCCESS));
+    }
+
+    public <T> Flux<T> stage(String operation, String stage, Flux<T> flux) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+
+            return flux.doOnComplete(() -> stop(stageTimer(operation, stage, SUCCESS), start))
+                    .doOnError(e -> stop(stageTimer(operation, stage, "error"), start))
+                    .doOnCancel(() -> stop(stageTimer(operation, stage, "cancelled"), start));
+        });
+    }
+
+    private <T> Mono<T> record(Mono<T> mono, Function<String, Timer> timer, long start, Function<? super T, String> outcomeOf) {
+        return mono.doOnSuccess(value -> stop(timer.apply(value == null ? "empty" : outcomeOf.apply(value)), start))
+                .doOnError(e -> stop(timer.apply("error"), start))
+                .doOnCancel(() -> stop(timer.apply("cancelled"), start));
+    }
+
+    private void stop(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private AtomicInteger inFlight(String operation) {
+        return inFlight.computeIfAbsent(operation, key -> {
+            AtomicInteger running = new AtomicInteger();
+            Gauge.builder("user.service.in-flight", running, AtomicInteger::get)
+                    .tag("operation", key)
+                    .register(meterRegistry);
+            return running;
+        });
+    }
+
+    private Timer requestTimer(String operation, Object type, Object method, String outcome) {
+        return Timer.builder("user.service.requests")
+                .tag("operation", operation)
+                .tag("type", tagValue(type))
+                .tag("method", tagValue(method))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Timer stageTimer(String operation, String stage, String outcome) {
+        return Timer.builder("user.service.stage")
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String tagValue(Object value) {
+        return value == null ? NONE : value.toString().toLowerCase();
+    }
+}
@@ -0,0 +1,102 @@
+package com.awpghost.user.services.notifications;
+
+import com.awpghost.user.dto.requests.DeliveryReceipt;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.services.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies delivery receipts of the Email and SMS microservices to users, one bulk update per channel and poll.
+ * <p>
+ * Receipts are read in order up to the first unreadable one. Everything before it is applied, then the poison record
+ * is reported with its index. The error handler commits the offsets before it, sends the record to the dead-letter
+ * topic and redelivers the rest.
+ */
+@Log4j2
+@Component
+public class DeliveryReceiptListener {
+    public static final String EMAIL_RECEIPTS_TOPIC = "email.receipts";
+
+    public static final String MOBILE_RECEIPTS_TOPIC = "mobile.receipts";
+
+    private final UserService userService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final Duration applyTimeout;
+
+    @Autowired
+    public DeliveryReceiptListener(UserService userService,
+                                   ObjectMapper objectMapper,
+                                   Validator validator,
+                                   @Value("${notification.receipts.apply-timeout:30s}") Duration applyTimeout) {
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.applyTimeout = applyTimeout;
+    }
+
+    @KafkaListener(topics = {EMAIL_RECEIPTS_TOPIC, MOBILE_RECEIPTS_TOPIC},
+            groupId = "${spring.application.name}-receipts",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void onReceipts(List<ConsumerRecord<String, String>> records) {
+        Map<VerificationType, List<DeliveryReceipt>> receipts = new EnumMap<>(VerificationType.class);
+        BatchListenerFailedException poisonRecord = null;
+
+        for (int index = 0; index < records.size() && poisonRecord == null; index++) {
+            ConsumerRecord<String, String> record = records.get(index);
+            try {
+                DeliveryReceipt receipt = read(record.value());
+                receipts.computeIfAbsent(verificationType(record.topic()), key -> new ArrayList<>()).add(receipt);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                log.warn("Unreadable delivery receipt at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                poisonRecord = new BatchListenerFailedException("Unreadable delivery receipt", e, index);
+            }
+        }
+
+        receipts.forEach((verificationType, channelReceipts) -> {
+            Long updated = userService.applyDeliveryReceipts(verificationType, channelReceipts).block(applyTimeout);
+            log.debug("Applied {} {} receipts to {} users", channelReceipts.size(), verificationType, updated);
+        });
+
+        if (poisonRecord != null) {
+            throw poisonRecord;
+        }
+    }
+
+    private DeliveryReceipt read(String value) throws JsonProcessingException {
+        if (value == null) {
+            throw new IllegalArgumentException("Empty delivery receipt");
+        }
+
+        DeliveryReceipt receipt = objectMapper.readValue(value, DeliveryReceipt.class);
+        Set<ConstraintViolation<DeliveryReceipt>> violations = validator.validate(receipt);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Invalid delivery receipt: " + violations);
+        }
+        return receipt;
+    }
+
+    private static VerificationType verificationType(String topic) {
+        return EMAIL_RECEIPTS_TOPIC.equals(topic) ? VerificationType.EMAIL : VerificationType.MOBILE_NUMBER;
+    }
+}
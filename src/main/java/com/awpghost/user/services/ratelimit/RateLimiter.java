@@ -0,0 +1,174 @@
+package com.awpghost.user.services.ratelimit;
+
+import com.awpghost.user.configurations.ratelimit.RateLimitProperties;
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.exceptions.RateLimitExceededException;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token bucket rate limiter shared by all replicas through Redis.
+ * <p>
+ * Every request is checked against a bucket per user id, per recipient (mobile number or email address) and a global
+ * bucket per operation, in a single script call. Keys rejected by Redis are remembered locally until their retry time,
+ * so a flood from one client is rejected without a network hop.
+ */
+@Log4j2
+@Component
+public class RateLimiter {
+    public static final String MOBILE_OTP = "mobile-otp";
+
+    public static final String EMAIL_TOKEN = "email-token";
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ACQUIRE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/ratelimit-acquire.lua"), List.class);
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final BackendGuard backendGuard;
+
+    private final Cache<String, Long> rejectedUntil;
+
+    @Autowired
+    public RateLimiter(ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                       RateLimitProperties rateLimitProperties,
+                       MeterRegistry meterRegistry,
+                       BackendGuard backendGuard) {
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.rateLimitProperties = rateLimitProperties;
+        this.meterRegistry = meterRegistry;
+        this.backendGuard = backendGuard;
+        this.rejectedUntil = Caffeine.newBuilder()
+                .maximumSize(rateLimitProperties.getLocalMaximumSize())
+                .expireAfterWrite(longestPeriod(rateLimitProperties))
+                .build();
+    }
+
+    /**
+     * Takes a token for the operation, or fails with {@link RateLimitExceededException} when any of the limits is exhausted.
+     * Blank user ids or recipients are not limited on their own, the global limit always applies.
+     */
+    public Mono<Void> acquire(String operation, String userId, String recipient) {
+        if (!rateLimitProperties.isEnabled()) {
+            return Mono.empty();
+        }
+
+        List<String> keys = new ArrayList<>(3);
+        List<String> args = new ArrayList<>(6);
+
+        if (StringUtils.hasText(userId)) {
+            addBucket(keys, args, KEY_PREFIX + operation + ":user:" + userId, rateLimitProperties.getUser());
+        }
+        if (StringUtils.hasText(recipient)) {
+            addBucket(keys, args, KEY_PREFIX + operation + ":recipient:" + recipient, rateLimitProperties.getRecipient());
+        }
+        addBucket(keys, args, KEY_PREFIX + operation + ":global", rateLimitProperties.getGlobal());
+
+        return acquire(operation, keys, args);
+    }
+
+    /**
+     * Takes a token from the recipient bucket only, for requests whose recipient is known once the user and global
+     * buckets were taken with {@link #acquire(String, String, String)}.
+     */
+    public Mono<Void> acquireRecipient(String operation, String recipient) {
+        if (!rateLimitProperties.isEnabled()) {
+            return Mono.empty();
+        }
+
+        List<String> keys = new ArrayList<>(1);
+        List<String> args = new ArrayList<>(2);
+        addBucket(keys, args, KEY_PREFIX + operation + ":recipient:" + recipient, rateLimitProperties.getRecipient());
+
+        return acquire(operation, keys, args);
+    }
+
+    private Mono<Void> acquire(String operation, List<String> keys, List<String> args) {
+        // Local clock, only used for the locally remembered rejections, buckets refill by the clock of Redis
+        long now = System.currentTimeMillis();
+
+        long localRetryAfter = 0;
+        for (String key : keys) {
+            Long until = rejectedUntil.getIfPresent(key);
+            if (until != null) {
+                localRetryAfter = Math.max(localRetryAfter, until - now);
+            }
+        }
+        if (localRetryAfter > 0) {
+            recordDecision(operation, "rejected", "local");
+            return Mono.error(rejected(operation, localRetryAfter));
+        }
+
+        return backendGuard.call(BackendDependency.REDIS, reactiveStringRedisTemplate.execute(ACQUIRE_SCRIPT, keys, args))
+                .next()
+                .flatMap(waits -> {
+                    long retryAfter = 0;
+                    for (int i = 0; i < keys.size(); i++) {
+                        long wait = ((Number) waits.get(i)).longValue();
+                        if (wait > 0) {
+                            rejectedUntil.put(keys.get(i), now + wait);
+                            retryAfter = Math.max(retryAfter, wait);
+                        }
+                    }
+
+                    if (retryAfter > 0) {
+                        recordDecision(operation, "rejected", "redis");
+                        return Mono.<Void>error(rejected(operation, retryAfter));
+                    }
+                    recordDecision(operation, "allowed", "redis");
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(e -> !(e instanceof RateLimitExceededException), e -> {
+                    // Fail open, an unavailable or shed Redis should not stop users from verifying
+                    log.warn("Unable to check rate limit for {}, allowing request", operation, e);
+                    recordDecision(operation, "allowed", "error");
+                    return Mono.empty();
+                });
+    }
+
+    private void addBucket(List<String> keys, List<String> args, String key, RateLimitProperties.Limit limit) {
+        keys.add(key);
+        args.add(String.valueOf(limit.getCapacity()));
+        args.add(String.valueOf((double) limit.getCapacity() / limit.getPeriod().toMillis()));
+    }
+
+    private RateLimitExceededException rejected(String operation, long retryAfterMillis) {
+        return new RateLimitExceededException("Too many requests for " + operation + ", please try again later",
+                Duration.ofMillis(retryAfterMillis));
+    }
+
+    private void recordDecision(String operation, String outcome, String source) {
+        meterRegistry.counter("ratelimit.decisions", "operation", operation, "outcome", outcome, "source", source).increment();
+    }
+
+    private static Duration longestPeriod(RateLimitProperties rateLimitProperties) {
+        Duration longestPeriod = rateLimitProperties.getUser().getPeriod();
+        if (rateLimitProperties.getRecipient().getPeriod().compareTo(longestPeriod) > 0) {
+            longestPeriod = rateLimitProperties.getRecipient().getPeriod();
+        }
+        if (rateLimitProperties.getGlobal().getPeriod().compareTo(longestPeriod) > 0) {
+            longestPeriod = rateLimitProperties.getGlobal().getPeriod();
+        }
+        return longestPeriod;
+    }
+}
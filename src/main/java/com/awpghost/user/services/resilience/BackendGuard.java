@@ -0,0 +1,284 @@
+package com.awpghost.user.services.resilience;
+
+import com.arangodb.ArangoDBException;
+import com.awpghost.user.configurations.resilience.ResilienceProperties;
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.exceptions.BackendUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Guards every call to a backend with, in this order: a circuit breaker that fails fast while the backend keeps failing,
+ * an {@link AdaptiveConcurrencyLimit} that sheds calls beyond what the backend currently handles in time, and a timeout.
+ * Shed calls, calls refused by an open circuit and timed out calls fail with {@link BackendUnavailableException}, which
+ * is answered with 503.
+ * <p>
+ * Bulk calls, whose latency grows with the number of documents they carry, hold permits of a separate fixed size limit,
+ * so their latency never shrinks the limit of interactive calls.
+ * <p>
+ * Per backend and kind of call ({@code calls} tag, {@code interactive} or {@code bulk}),
+ * {@code backend.concurrency.limit} and {@code backend.concurrency.in-flight} track the limit, {@code backend.calls.shed}
+ * counts refused calls by reason and {@code backend.calls} times calls by outcome. {@code backend.circuit.state} is 0
+ * when closed, 1 when open and 2 when half open.
+ */
+@Log4j2
+@Component
+public class BackendGuard {
+    private final boolean enabled;
+
+    private final Map<BackendDependency, Backend> backends = new EnumMap<>(BackendDependency.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public BackendGuard(ResilienceProperties resilienceProperties, MeterRegistry meterRegistry) {
+        this.enabled = resilienceProperties.isEnabled();
+        this.meterRegistry = meterRegistry;
+
+        for (BackendDependency backendDependency : BackendDependency.values()) {
+            Backend backend = new Backend(backendDependency, resilienceProperties.get(backendDependency));
+            backends.put(backendDependency, backend);
+
+            String dependency = dependencyTag(backendDependency);
+            for (boolean bulk : new boolean[]{false, true}) {
+                Gauge.builder("backend.concurrency.limit", backend.limit(bulk), AdaptiveConcurrencyLimit::getLimit)
+                        .tag("dependency", dependency)
+                        .tag("calls", callsTag(bulk))
+                        .register(meterRegistry);
+                Gauge.builder("backend.concurrency.in-flight", backend.limit(bulk), AdaptiveConcurrencyLimit::getInFlight)
+                        .tag("dependency", dependency)
+                        .tag("calls", callsTag(bulk))
+                        .register(meterRegistry);
+            }
+            Gauge.builder("backend.circuit.state", backend.circuitBreaker, circuitBreaker -> circuitBreaker.getState().getOrder())
+                    .tag("dependency", dependency)
+                    .register(meterRegistry);
+            backend.circuitBreaker.getEventPublisher().onStateTransition(event ->
+                    log.warn("Circuit of {} went from {}", backendDependency, event.getStateTransition()));
+        }
+    }
+
+    public <T> Mono<T> call(BackendDependency backendDependency, Mono<T> call) {
+        return call(backendDependency, false, call);
+    }
+
+    /**
+     * Guards a call that answers with a stream, timing out when the backend goes longer than the timeout without
+     * emitting. Streams are held to the concurrency limit until they complete.
+     */
+    public <T> Flux<T> call(BackendDependency backendDependency, Flux<T> call) {
+        return call(backendDependency, false, call);
+    }
+
+    /**
+     * Guards a call carrying many documents, such as a bulk insert, a batch lookup or an export page. It shares the
+     * circuit breaker of the backend, but holds a permit of the fixed {@code bulk-limit} and times out after
+     * {@code bulk-timeout}.
+     */
+    public <T> Mono<T> bulk(BackendDependency backendDependency, Mono<T> call) {
+        return call(backendDependency, true, call);
+    }
+
+    public <T> Flux<T> bulk(BackendDependency backendDependency, Flux<T> call) {
+        return call(backendDependency, true, call);
+    }
+
+    private <T> Mono<T> call(BackendDependency backendDependency, boolean bulk, Mono<T> call) {
+        if (!enabled) {
+            return call;
+        }
+
+        Backend backend = backends.get(backendDependency);
+        Duration timeout = backend.timeout(bulk);
+        return Mono.defer(() -> {
+            Permit permit = backend.acquire(bulk);
+            return call.timeout(timeout)
+                    .doOnSuccess(value -> permit.succeeded())
+                    .doOnError(permit::failed)
+                    .doOnCancel(permit::cancelled)
+                    .onErrorMap(TimeoutException.class, timeoutException -> backend.unavailable("did not answer within " + timeout));
+        });
+    }
+
+    private <T> Flux<T> call(BackendDependency backendDependency, boolean bulk, Flux<T> call) {
+        if (!enabled) {
+            return call;
+        }
+
+        Backend backend = backends.get(backendDependency);
+        Duration timeout = backend.timeout(bulk);
+        return Flux.defer(() -> {
+            Permit permit = backend.acquire(bulk);
+            return call.timeout(timeout)
+                    .doOnComplete(permit::succeeded)
+                    .doOnError(permit::failed)
+                    .doOnCancel(permit::cancelled)
+                    .onErrorMap(TimeoutException.class, timeoutException -> backend.unavailable("did not answer within " + timeout));
+        });
+    }
+
+    AdaptiveConcurrencyLimit limit(BackendDependency backendDependency) {
+        return backends.get(backendDependency).limit;
+    }
+
+    AdaptiveConcurrencyLimit bulkLimit(BackendDependency backendDependency) {
+        return backends.get(backendDependency).bulkLimit;
+    }
+
+    CircuitBreaker circuitBreaker(BackendDependency backendDependency) {
+        return backends.get(backendDependency).circuitBreaker;
+    }
+
+    private static String dependencyTag(BackendDependency backendDependency) {
+        return backendDependency.name().toLowerCase();
+    }
+
+    private static String callsTag(boolean bulk) {
+        return bulk ? "bulk" : "interactive";
+    }
+
+    /**
+     * Client errors such as a unique constraint violation say nothing about the health of ArangoDB.
+     */
+    private static boolean isBackendFailure(Throwable throwable) {
+        if (throwable instanceof ArangoDBException) {
+            Integer responseCode = ((ArangoDBException) throwable).getResponseCode();
+            return responseCode == null || responseCode >= 500;
+        }
+        return true;
+    }
+
+    private final class Backend {
+        private final BackendDependency backendDependency;
+
+        private final ResilienceProperties.Backend settings;
+
+        private final AdaptiveConcurrencyLimit limit;
+
+        private final AdaptiveConcurrencyLimit bulkLimit;
+
+        private final CircuitBreaker circuitBreaker;
+
+        private Backend(BackendDependency backendDependency, ResilienceProperties.Backend settings) {
+            this.backendDependency = backendDependency;
+            this.settings = settings;
+            this.limit = new AdaptiveConcurrencyLimit(settings.getInitialLimit(), settings.getMinLimit(), settings.getMaxLimit(),
+                    settings.getBackoffRatio(), settings.getLatencyThreshold().toNanos());
+            // Fixed size, and no latency counts as overload
+            this.bulkLimit = new AdaptiveConcurrencyLimit(settings.getBulkLimit(), settings.getBulkLimit(), settings.getBulkLimit(),
+                    settings.getBackoffRatio(), Long.MAX_VALUE);
+            this.circuitBreaker = CircuitBreaker.of(dependencyTag(backendDependency), CircuitBreakerConfig.custom()
+                    .failureRateThreshold(settings.getFailureRateThreshold())
+                    .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                    .slidingWindowSize(settings.getSlidingWindowSize())
+                    .minimumNumberOfCalls(Math.min(settings.getSlidingWindowSize(), 20))
+                    .waitDurationInOpenState(settings.getOpenStateDuration())
+                    .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                    .recordException(BackendGuard::isBackendFailure)
+                    .build());
+        }
+
+        private AdaptiveConcurrencyLimit limit(boolean bulk) {
+            return bulk ? bulkLimit : limit;
+        }
+
+        private Duration timeout(boolean bulk) {
+            return bulk ? settings.getBulkTimeout() : settings.getTimeout();
+        }
+
+        private Permit acquire(boolean bulk) {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                shed("circuit-open", bulk);
+                throw unavailable("circuit is open");
+            }
+            AdaptiveConcurrencyLimit callLimit = limit(bulk);
+            if (!callLimit.tryAcquire()) {
+                circuitBreaker.releasePermission();
+                shed("limit", bulk);
+                throw unavailable("is at its " + callsTag(bulk) + " concurrency limit of " + callLimit.getLimit());
+            }
+            return new Permit(this, bulk);
+        }
+
+        private void shed(String reason, boolean bulk) {
+            meterRegistry.counter("backend.calls.shed", "dependency", dependencyTag(backendDependency), "calls", callsTag(bulk),
+                    "reason", reason).increment();
+        }
+
+        private void record(String outcome, boolean bulk, long latencyNanos) {
+            Timer.builder("backend.calls")
+                    .tag("dependency", dependencyTag(backendDependency))
+                    .tag("calls", callsTag(bulk))
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private BackendUnavailableException unavailable(String reason) {
+            return new BackendUnavailableException(dependencyTag(backendDependency) + " " + reason);
+        }
+    }
+
+    /**
+     * One admitted call, released exactly once whichever of completion, error or cancellation comes first.
+     */
+    private static final class Permit {
+        private final Backend backend;
+
+        private final boolean bulk;
+
+        private final AdaptiveConcurrencyLimit limit;
+
+        private final long started = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Backend backend, boolean bulk) {
+            this.backend = backend;
+            this.bulk = bulk;
+            this.limit = backend.limit(bulk);
+        }
+
+        private void succeeded() {
+            if (released.compareAndSet(false, true)) {
+                long latencyNanos = System.nanoTime() - started;
+                backend.circuitBreaker.onSuccess(latencyNanos, TimeUnit.NANOSECONDS);
+                limit.release(latencyNanos, false);
+                backend.record("success", bulk, latencyNanos);
+            }
+        }
+
+        private void failed(Throwable throwable) {
+            if (released.compareAndSet(false, true)) {
+                long latencyNanos = System.nanoTime() - started;
+                boolean timedOut = throwable instanceof TimeoutException;
+                backend.circuitBreaker.onError(latencyNanos, TimeUnit.NANOSECONDS, throwable);
+                limit.release(latencyNanos, timedOut);
+                backend.record(timedOut ? "timeout" : "failure", bulk, latencyNanos);
+            }
+        }
+
+        private void cancelled() {
+            if (released.compareAndSet(false, true)) {
+                backend.circuitBreaker.releasePermission();
+                limit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.awpghost.user.services.session;
+
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Request-scoped view of a session served by {@link CachingReactiveSessionRepository}. Reads and writes go to a private
+ * copy of the session state. When the session was loaded from or created in Redis during this request, writes are
+ * also applied to that session. Otherwise, they are recorded and replayed onto a freshly loaded session on save.
+ */
+public final class CachedSession implements Session {
+    private final MapSession state;
+
+    private final String originalId;
+
+    private final Instant persistedLastAccessedTime;
+
+    private final boolean isNew;
+
+    private final Set<String> changedAttributes = new HashSet<>();
+
+    private Session loaded;
+
+    private boolean maxInactiveIntervalChanged;
+
+    private boolean sessionIdChangeRequested;
+
+    private CachedSession(MapSession state, Session loaded, Instant persistedLastAccessedTime, boolean isNew) {
+        this.state = state;
+        this.originalId = state.getId();
+        this.loaded = loaded;
+        this.persistedLastAccessedTime = persistedLastAccessedTime;
+        this.isNew = isNew;
+    }
+
+    static CachedSession created(Session session) {
+        return new CachedSession(new MapSession(session), session, session.getLastAccessedTime(), true);
+    }
+
+    static CachedSession loaded(Session session) {
+        return new CachedSession(new MapSession(session), session, session.getLastAccessedTime(), false);
+    }
+
+    static CachedSession cached(MapSession session, Instant persistedLastAccessedTime) {
+        return new CachedSession(new MapSession(session), null, persistedLastAccessedTime, false);
+    }
+
+    @Override
+    public String getId() {
+        return state.getId();
+    }
+
+    /**
+     * When the session was served from the local cache, the new id is only assigned on save, as Spring Session's
+     * {@code WebSessionStore} does not read it before.
+     */
+    @Override
+    public String changeSessionId() {
+        if (loaded != null) {
+            state.setId(loaded.changeSessionId());
+        } else {
+            sessionIdChangeRequested = true;
+        }
+        return state.getId();
+    }
+
+    @Override
+    public <T> T getAttribute(String attributeName) {
+        return state.getAttribute(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        return state.getAttributeNames();
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+        state.setAttribute(attributeName, attributeValue);
+        changedAttributes.add(attributeName);
+        if (loaded != null) {
+            loaded.setAttribute(attributeName, attributeValue);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+        setAttribute(attributeName, null);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+        return state.getCreationTime();
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+        state.setLastAccessedTime(lastAccessedTime);
+        if (loaded != null) {
+            loaded.setLastAccessedTime(lastAccessedTime);
+        }
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+        return state.getLastAccessedTime();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+        state.setMaxInactiveInterval(interval);
+        maxInactiveIntervalChanged = true;
+        if (loaded != null) {
+            loaded.setMaxInactiveInterval(interval);
+        }
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+        return state.getMaxInactiveInterval();
+    }
+
+    @Override
+    public boolean isExpired() {
+        return state.isExpired();
+    }
+
+    String getOriginalId() {
+        return originalId;
+    }
+
+    Session getLoaded() {
+        return loaded;
+    }
+
+    MapSession getState() {
+        return state;
+    }
+
+    boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Whether anything other than the last accessed time changed, which other replicas must see.
+     */
+    boolean hasSharedChanges() {
+        return !changedAttributes.isEmpty() || maxInactiveIntervalChanged || sessionIdChangeRequested || !originalId.equals(getId());
+    }
+
+    boolean isLastAccessWriteDue(Duration lastAccessWriteInterval) {
+        return Duration.between(persistedLastAccessedTime, state.getLastAccessedTime()).compareTo(lastAccessWriteInterval) >= 0;
+    }
+
+    /**
+     * Replays the recorded changes onto a session loaded from Redis while saving a cached session.
+     */
+    void replayOnto(Session session) {
+        loaded = session;
+        if (sessionIdChangeRequested) {
+            state.setId(session.changeSessionId());
+        }
+        changedAttributes.forEach(attributeName -> session.setAttribute(attributeName, state.getAttribute(attributeName)));
+        if (maxInactiveIntervalChanged) {
+            session.setMaxInactiveInterval(state.getMaxInactiveInterval());
+        }
+        session.setLastAccessedTime(state.getLastAccessedTime());
+    }
+}
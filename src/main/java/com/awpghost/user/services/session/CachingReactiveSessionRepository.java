@@ -0,0 +1,73 @@
+package com.awpghost.user.services.session;
+
+import org.springframework.session.MapSession;
+import org.springframework.session.ReactiveSessionRepository;
+import org.springframework.session.Session;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves recently used sessions from {@link SessionCache} instead of loading them from Redis on every request.
+ * <p>
+ * Saves that only move the last accessed time are coalesced, and written to Redis at most once per
+ * {@code session.cache.last-access-write-interval}. Keep that interval well below the session timeout, because Redis
+ * expires a session relative to its last write. Any other change is written through: if the session was served
+ * from the cache, it is loaded from Redis, the recorded changes are replayed onto it, and it is saved. Then every replica
+ * is told to evict its copy.
+ */
+public class CachingReactiveSessionRepository implements ReactiveSessionRepository<CachedSession> {
+    private final ReactiveSessionRepository<Session> delegate;
+
+    private final SessionCache sessionCache;
+
+    @SuppressWarnings("unchecked")
+    public CachingReactiveSessionRepository(ReactiveSessionRepository<? extends Session> delegate, SessionCache sessionCache) {
+        this.delegate = (ReactiveSessionRepository<Session>) delegate;
+        this.sessionCache = sessionCache;
+    }
+
+    @Override
+    public Mono<CachedSession> createSession() {
+        return delegate.createSession().map(CachedSession::created);
+    }
+
+    @Override
+    public Mono<Void> save(CachedSession session) {
+        if (!session.isNew() && !session.hasSharedChanges() && !session.isLastAccessWriteDue(sessionCache.getLastAccessWriteInterval())) {
+            sessionCache.recordWrite(true);
+            return Mono.empty();
+        }
+
+        Mono<Session> target = session.getLoaded() != null
+                ? Mono.just(session.getLoaded())
+                : delegate.findById(session.getOriginalId()).doOnNext(session::replayOnto);
+
+        return target.flatMap(loaded -> delegate.save(loaded).thenReturn(loaded))
+                .flatMap(saved -> {
+                    sessionCache.recordWrite(false);
+                    MapSession state = session.getState();
+                    if (session.hasSharedChanges()) {
+                        return sessionCache.invalidate(session.getOriginalId())
+                                .then(Mono.fromRunnable(() -> sessionCache.put(state, state.getLastAccessedTime())));
+                    }
+                    sessionCache.put(state, state.getLastAccessedTime());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<CachedSession> findById(String id) {
+        CachedSession cached = sessionCache.get(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return delegate.findById(id)
+                .doOnNext(session -> sessionCache.put(new MapSession(session), session.getLastAccessedTime()))
+                .map(CachedSession::loaded);
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return delegate.deleteById(id).then(sessionCache.invalidate(id));
+    }
+}
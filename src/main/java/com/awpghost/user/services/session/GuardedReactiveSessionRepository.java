@@ -0,0 +1,43 @@
+package com.awpghost.user.services.session;
+
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.services.resilience.BackendGuard;
+import org.springframework.session.ReactiveSessionRepository;
+import org.springframework.session.Session;
+import reactor.core.publisher.Mono;
+
+/**
+ * Guards the Redis calls of the session repository with {@link BackendGuard}, so a slow Redis fails session lookups
+ * and saves fast instead of holding every request. Creating a session does not touch Redis and is not guarded.
+ */
+public class GuardedReactiveSessionRepository implements ReactiveSessionRepository<Session> {
+    private final ReactiveSessionRepository<Session> delegate;
+
+    private final BackendGuard backendGuard;
+
+    @SuppressWarnings("unchecked")
+    public GuardedReactiveSessionRepository(ReactiveSessionRepository<? extends Session> delegate, BackendGuard backendGuard) {
+        this.delegate = (ReactiveSessionRepository<Session>) delegate;
+        this.backendGuard = backendGuard;
+    }
+
+    @Override
+    public Mono<Session> createSession() {
+        return delegate.createSession();
+    }
+
+    @Override
+    public Mono<Void> save(Session session) {
+        return backendGuard.call(BackendDependency.REDIS, delegate.save(session));
+    }
+
+    @Override
+    public Mono<Session> findById(String id) {
+        return backendGuard.call(BackendDependency.REDIS, delegate.findById(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return backendGuard.call(BackendDependency.REDIS, delegate.deleteById(id));
+    }
+}
@@ -0,0 +1,151 @@
+package com.awpghost.user.services.session;
+
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.session.MapSession;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Bounded in-process cache of recently used sessions. Every replica subscribes to a Redis pub/sub channel, and a session
+ * is evicted everywhere when its attributes, id or timeout change, or when it is deleted. The local time to live bounds
+ * how stale an entry can get if a message is lost.
+ */
+@Log4j2
+@Component
+public class SessionCache {
+    public static final String INVALIDATION_CHANNEL = "user:session:invalidate";
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final BackendGuard backendGuard;
+
+    private final Cache<String, Entry> sessions;
+
+    @Getter
+    private final boolean enabled;
+
+    @Getter
+    private final Duration lastAccessWriteInterval;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter writes;
+
+    private final Counter coalescedWrites;
+
+    private Disposable subscription;
+
+    @Autowired
+    public SessionCache(ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                        BackendGuard backendGuard,
+                        MeterRegistry meterRegistry,
+                        @Value("${session.cache.enabled:true}") boolean enabled,
+                        @Value("${session.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${session.cache.time-to-live:30s}") Duration timeToLive,
+                        @Value("${session.cache.last-access-write-interval:60s}") Duration lastAccessWriteInterval) {
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.backendGuard = backendGuard;
+        this.enabled = enabled;
+        this.lastAccessWriteInterval = lastAccessWriteInterval;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+
+        this.hits = meterRegistry.counter("session.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("session.cache.requests", "result", "miss");
+        this.writes = meterRegistry.counter("session.cache.writes", "result", "written");
+        this.coalescedWrites = meterRegistry.counter("session.cache.writes", "result", "coalesced");
+        meterRegistry.gaugeMapSize("session.cache.size", List.of(), sessions.asMap());
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!enabled) {
+            return;
+        }
+
+        // Not guarded, the subscription stays open for the life of the instance and can be silent for longer than any
+        // timeout. It recovers on its own by retrying, and evicts everything while it may have missed messages.
+        subscription = reactiveStringRedisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+                .doOnNext(message -> sessions.invalidate(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(retrySignal -> {
+                            log.warn("Session invalidation subscription failed, evicting all cached sessions", retrySignal.failure());
+                            sessions.invalidateAll();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Copy of the cached session, or null when it is not cached or has expired.
+     */
+    CachedSession get(String id) {
+        Entry entry = sessions.getIfPresent(id);
+        if (entry == null || entry.session.isExpired()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return CachedSession.cached(entry.session, entry.persistedLastAccessedTime);
+    }
+
+    void put(MapSession session, Instant persistedLastAccessedTime) {
+        sessions.put(session.getId(), new Entry(new MapSession(session), persistedLastAccessedTime));
+    }
+
+    void recordWrite(boolean coalesced) {
+        (coalesced ? coalescedWrites : writes).increment();
+    }
+
+    /**
+     * Evicts the session here and publishes the eviction to all replicas.
+     */
+    Mono<Void> invalidate(String id) {
+        sessions.invalidate(id);
+        return backendGuard.call(BackendDependency.REDIS, reactiveStringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, id))
+                .onErrorResume(e -> {
+                    log.error("Unable to publish invalidation of session {}", id, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static final class Entry {
+        private final MapSession session;
+
+        private final Instant persistedLastAccessedTime;
+
+        private Entry(MapSession session, Instant persistedLastAccessedTime) {
+            this.session = session;
+            this.persistedLastAccessedTime = persistedLastAccessedTime;
+        }
+    }
+}
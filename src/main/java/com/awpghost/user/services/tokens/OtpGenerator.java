@@ -0,0 +1,8 @@
+package com.awpghost.user.services.tokens;
+
+public interface OtpGenerator {
+    /**
+     * Generates a numeric one time password of fixed width, zero padded.
+     */
+    String generate();
+}
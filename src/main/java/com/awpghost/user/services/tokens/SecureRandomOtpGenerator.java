@@ -0,0 +1,49 @@
+package com.awpghost.user.services.tokens;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SecureRandomOtpGenerator implements OtpGenerator {
+    private static final int MAX_LENGTH = 18;
+
+    private final int length;
+
+    private final long bound;
+
+    private final long rejectionLimit;
+
+    @Autowired
+    public SecureRandomOtpGenerator(@Value("${otp.length}") int length) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("OTP length must be between 1 and " + MAX_LENGTH + ", was " + length);
+        }
+        this.length = length;
+
+        long bound = 1;
+        for (int i = 0; i < length; i++) {
+            bound *= 10;
+        }
+        this.bound = bound;
+        // Largest multiple of bound that fits in 63 bits, values above it are redrawn so every OTP is equally likely
+        this.rejectionLimit = Long.MAX_VALUE - (Long.MAX_VALUE % bound);
+    }
+
+    @Override
+    public String generate() {
+        ThreadLocalEntropy entropy = ThreadLocalEntropy.current();
+        long value;
+        do {
+            value = entropy.nextLong() >>> 1;
+        } while (value >= rejectionLimit);
+        value %= bound;
+
+        char[] digits = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+        return new String(digits);
+    }
+}
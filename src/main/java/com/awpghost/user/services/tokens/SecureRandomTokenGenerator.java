@@ -0,0 +1,29 @@
+package com.awpghost.user.services.tokens;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+
+@Component
+public class SecureRandomTokenGenerator implements TokenGenerator {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final int tokenBytes;
+
+    @Autowired
+    public SecureRandomTokenGenerator(@Value("${token.bytes}") int tokenBytes) {
+        if (tokenBytes < 16) {
+            throw new IllegalArgumentException("Tokens need at least 16 random bytes, was " + tokenBytes);
+        }
+        this.tokenBytes = tokenBytes;
+    }
+
+    @Override
+    public String generate() {
+        byte[] bytes = new byte[tokenBytes];
+        ThreadLocalEntropy.current().nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+}
@@ -0,0 +1,60 @@
+package com.awpghost.user.services.tokens;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Cryptographically strong random bytes, buffered per thread.
+ * <p>
+ * Each thread owns a DRBG {@link SecureRandom}, so threads never wait on each other. The default NativePRNG shares one
+ * lock-protected source across all instances. Random bytes are drawn in blocks, so most calls only copy from the buffer.
+ */
+final class ThreadLocalEntropy {
+    private static final int BUFFER_SIZE = 512;
+
+    private static final ThreadLocal<ThreadLocalEntropy> ENTROPY = ThreadLocal.withInitial(ThreadLocalEntropy::new);
+
+    private final SecureRandom secureRandom;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position = BUFFER_SIZE;
+
+    private ThreadLocalEntropy() {
+        try {
+            this.secureRandom = SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("DRBG SecureRandom is not available", e);
+        }
+    }
+
+    static ThreadLocalEntropy current() {
+        return ENTROPY.get();
+    }
+
+    long nextLong() {
+        ensureAvailable(Long.BYTES);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    void nextBytes(byte[] bytes) {
+        if (bytes.length > BUFFER_SIZE) {
+            secureRandom.nextBytes(bytes);
+            return;
+        }
+        ensureAvailable(bytes.length);
+        System.arraycopy(buffer, position, bytes, 0, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensureAvailable(int count) {
+        if (BUFFER_SIZE - position < count) {
+            secureRandom.nextBytes(buffer);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.awpghost.user.services.tokens;
+
+public interface TokenGenerator {
+    /**
+     * Generates a random token that can be put in a URL without encoding.
+     */
+    String generate();
+}
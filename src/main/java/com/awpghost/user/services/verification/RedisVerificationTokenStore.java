@@ -0,0 +1,83 @@
+package com.awpghost.user.services.verification;
+
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.enums.VerificationMethod;
+import com.awpghost.user.enums.VerificationResult;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.services.resilience.BackendGuard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Verification tokens in Redis, namespaced by {@link VerificationType} and {@link VerificationMethod} so an email token
+ * and a mobile OTP of the same user do not overwrite each other. Storing and consuming are each a single script call.
+ */
+@Component
+public class RedisVerificationTokenStore implements VerificationTokenStore {
+    private static final String KEY_PREFIX = "verification:";
+
+    private static final RedisScript<Long> STORE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/verification-store.lua"), Long.class);
+
+    private static final RedisScript<Long> CONSUME_SCRIPT = RedisScript.of(new ClassPathResource("scripts/verification-consume.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final BackendGuard backendGuard;
+
+    private final Integer MAX_ATTEMPTS;
+
+    @Autowired
+    public RedisVerificationTokenStore(ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                       BackendGuard backendGuard,
+                                       @Value("${verification.max-attempts}") Integer MAX_ATTEMPTS) {
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.backendGuard = backendGuard;
+        this.MAX_ATTEMPTS = MAX_ATTEMPTS;
+    }
+
+    @Override
+    public Mono<Void> store(String userId, VerificationType verificationType, VerificationMethod verificationMethod, String token, Duration timeToLive) {
+        String key = tokenKey(userId, verificationType, verificationMethod);
+
+        return backendGuard.call(BackendDependency.REDIS,
+                reactiveStringRedisTemplate.execute(STORE_SCRIPT, List.of(key, attemptsKey(key)), List.of(token, String.valueOf(timeToLive.toMillis()))).then());
+    }
+
+    @Override
+    public Mono<VerificationResult> consume(String userId, VerificationType verificationType, VerificationMethod verificationMethod, String token) {
+        String key = tokenKey(userId, verificationType, verificationMethod);
+
+        return backendGuard.call(BackendDependency.REDIS,
+                        reactiveStringRedisTemplate.execute(CONSUME_SCRIPT, List.of(key, attemptsKey(key)), List.of(token, String.valueOf(MAX_ATTEMPTS))).next())
+                .map(RedisVerificationTokenStore::toVerificationResult);
+    }
+
+    private static VerificationResult toVerificationResult(Long result) {
+        switch (result.intValue()) {
+            case 1:
+                return VerificationResult.VERIFIED;
+            case -1:
+                return VerificationResult.NOT_FOUND;
+            case -2:
+                return VerificationResult.ATTEMPTS_EXCEEDED;
+            default:
+                return VerificationResult.MISMATCH;
+        }
+    }
+
+    private static String tokenKey(String userId, VerificationType verificationType, VerificationMethod verificationMethod) {
+        return KEY_PREFIX + verificationType.name().toLowerCase() + ":" + verificationMethod.name().toLowerCase() + ":" + userId;
+    }
+
+    private static String attemptsKey(String tokenKey) {
+        return tokenKey + ":attempts";
+    }
+}
@@ -0,0 +1,140 @@
+package com.awpghost.user.services.verification;
+
+import com.awpghost.user.configurations.verification.EmailVerificationProperties;
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.enums.EmailVerificationMode;
+import com.awpghost.user.enums.VerificationResult;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.awpghost.user.services.tokens.TokenGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stateless verification tokens of the form {@code <key id>.<payload>.<signature>}. The payload carries the user id,
+ * the {@link VerificationType}, the expiry and a random token id, and is signed with HMAC-SHA256.
+ * <p>
+ * Verifying is a local signature and expiry check. When single use is enabled, the token id is also written to a Redis
+ * denylist with {@code SET NX} until the token expires, so a second use of the same token is rejected.
+ */
+@Component
+public class SignedVerificationTokens {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final String USED_KEY_PREFIX = "verification:used:";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final BackendGuard backendGuard;
+
+    private final TokenGenerator tokenGenerator;
+
+    private final String activeKeyId;
+
+    private final boolean singleUse;
+
+    private final Map<String, ThreadLocal<Mac>> macs = new HashMap<>();
+
+    @Autowired
+    public SignedVerificationTokens(ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                    BackendGuard backendGuard,
+                                    TokenGenerator tokenGenerator,
+                                    EmailVerificationProperties emailVerificationProperties) {
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.backendGuard = backendGuard;
+        this.tokenGenerator = tokenGenerator;
+        this.activeKeyId = emailVerificationProperties.getActiveKeyId();
+        this.singleUse = emailVerificationProperties.isSingleUse();
+
+        emailVerificationProperties.getKeys().forEach((keyId, secret) -> macs.put(keyId, createMac(keyId, secret)));
+
+        if (emailVerificationProperties.getMode() == EmailVerificationMode.SIGNED && !macs.containsKey(activeKeyId)) {
+            throw new IllegalStateException("verification.email.active-key-id must name one of verification.email.keys, was " + activeKeyId);
+        }
+    }
+
+    public String issue(String userId, VerificationType verificationType, Duration timeToLive) {
+        long expiresAt = Instant.now().plus(timeToLive).getEpochSecond();
+        String claims = String.join("\n", userId, verificationType.name(), String.valueOf(expiresAt), tokenGenerator.generate());
+        String signed = activeKeyId + "." + ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+
+        return signed + "." + ENCODER.encodeToString(sign(activeKeyId, signed));
+    }
+
+    public Mono<VerificationResult> verify(String token, String userId, VerificationType verificationType) {
+        String[] parts = token == null ? new String[0] : token.split("\\.");
+        if (parts.length != 3 || !macs.containsKey(parts[0])) {
+            return Mono.just(VerificationResult.MISMATCH);
+        }
+
+        String[] claims;
+        try {
+            byte[] signature = DECODER.decode(parts[2]);
+            if (!MessageDigest.isEqual(signature, sign(parts[0], parts[0] + "." + parts[1]))) {
+                return Mono.just(VerificationResult.MISMATCH);
+            }
+            claims = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8).split("\n");
+        } catch (IllegalArgumentException e) {
+            return Mono.just(VerificationResult.MISMATCH);
+        }
+
+        if (claims.length != 4 || !claims[0].equals(userId) || !claims[1].equals(verificationType.name())) {
+            return Mono.just(VerificationResult.MISMATCH);
+        }
+
+        Duration remaining = Duration.between(Instant.now(), Instant.ofEpochSecond(Long.parseLong(claims[2])));
+        if (remaining.isNegative() || remaining.isZero()) {
+            return Mono.just(VerificationResult.EXPIRED);
+        }
+
+        if (!singleUse) {
+            return Mono.just(VerificationResult.VERIFIED);
+        }
+
+        return backendGuard.call(BackendDependency.REDIS, reactiveStringRedisTemplate.opsForValue().setIfAbsent(USED_KEY_PREFIX + claims[3], userId, remaining))
+                .map(firstUse -> firstUse ? VerificationResult.VERIFIED : VerificationResult.NOT_FOUND);
+    }
+
+    private byte[] sign(String keyId, String value) {
+        return macs.get(keyId).get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ThreadLocal<Mac> createMac(String keyId, String secret) {
+        if (keyId.contains(".")) {
+            throw new IllegalStateException("Verification key ids must not contain '.', was " + keyId);
+        }
+
+        byte[] key = Base64.getDecoder().decode(secret);
+        if (key.length < 32) {
+            throw new IllegalStateException("Verification key " + keyId + " needs at least 32 bytes, was " + key.length);
+        }
+
+        SecretKeySpec secretKeySpec = new SecretKeySpec(key, ALGORITHM);
+        return ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(secretKeySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to create " + ALGORITHM, e);
+            }
+        });
+    }
+}
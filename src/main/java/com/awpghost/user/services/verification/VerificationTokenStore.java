@@ -0,0 +1,20 @@
+package com.awpghost.user.services.verification;
+
+import com.awpghost.user.enums.VerificationMethod;
+import com.awpghost.user.enums.VerificationResult;
+import com.awpghost.user.enums.VerificationType;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+public interface VerificationTokenStore {
+    /**
+     * Stores the token for the user, replacing any previous token of the same type and method and resetting failed attempts.
+     */
+    Mono<Void> store(String userId, VerificationType verificationType, VerificationMethod verificationMethod, String token, Duration timeToLive);
+
+    /**
+     * Checks the presented token and consumes it when it matches, failed attempts are counted against the stored token.
+     */
+    Mono<VerificationResult> consume(String userId, VerificationType verificationType, VerificationMethod verificationMethod, String token);
+}
@@ -0,0 +1,52 @@
+package com.awpghost.user.services.view;
+
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.persistence.models.User;
+import com.awpghost.user.services.execution.BlockingExecutor;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Publishes the latest state of a user to the compacted {@value #TOPIC} topic, keyed by user id, which the Kafka Streams
+ * {@link UserView} materializes. Failures are logged and not propagated, the view then keeps serving the previous state
+ * until the next change and reads of unknown users fall back to the database.
+ */
+@Log4j2
+@Component
+public class UserChangePublisher {
+    public static final String TOPIC = "user.changes";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final BlockingExecutor blockingExecutor;
+
+    private final BackendGuard backendGuard;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public UserChangePublisher(KafkaTemplate<String, String> kafkaTemplate, BlockingExecutor blockingExecutor, BackendGuard backendGuard,
+                               ObjectMapper objectMapper) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.blockingExecutor = blockingExecutor;
+        this.backendGuard = backendGuard;
+        this.objectMapper = objectMapper;
+    }
+
+    public Mono<Void> publish(User user) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(user))
+                .flatMap(message -> backendGuard.call(BackendDependency.KAFKA,
+                        blockingExecutor.call("kafka-send", () -> kafkaTemplate.send(TOPIC, user.getId(), message))
+                                .flatMap(sendFuture -> Mono.fromFuture(sendFuture.completable()))))
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Unable to publish change of user {}", user.getId(), e);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,159 @@
+package com.awpghost.user.services.view;
+
+import com.awpghost.user.persistence.models.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Reads users from the Kafka Streams materialization of {@value UserChangePublisher#TOPIC}. Each store is partitioned
+ * across replicas. A key owned by another replica is fetched from that replica's {@code /internal/user-view} endpoint,
+ * found through Kafka Streams metadata.
+ * <p>
+ * An empty result means the view cannot answer: the user is unknown, the view is disabled or rebalancing, or the owner
+ * is unreachable. Callers then fall back to the cache and database.
+ * <p>
+ * Streams start once the web server is up, because {@code application.server} must advertise the actual port.
+ */
+@Log4j2
+@Component
+public class UserView implements ApplicationListener<WebServerInitializedEvent> {
+    public static final String USERS_BY_ID = "users-by-id";
+
+    public static final String USERS_BY_EMAIL = "users-by-email";
+
+    public static final String USERS_BY_MOBILE_NO = "users-by-mobile-no";
+
+    public static final Set<String> STORES = Set.of(USERS_BY_ID, USERS_BY_EMAIL, USERS_BY_MOBILE_NO);
+
+    private final ObjectProvider<StreamsBuilderFactoryBean> streamsBuilderFactoryBean;
+
+    private final WebClient webClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String advertisedHost;
+
+    private final Duration remoteTimeout;
+
+    private volatile HostInfo localHost;
+
+    @Autowired
+    public UserView(ObjectProvider<StreamsBuilderFactoryBean> streamsBuilderFactoryBean,
+                    WebClient.Builder webClientBuilder,
+                    ObjectMapper objectMapper,
+                    MeterRegistry meterRegistry,
+                    @Value("${user.view.advertised-host:${java.rmi.server.hostname:localhost}}") String advertisedHost,
+                    @Value("${user.view.remote-timeout:500ms}") Duration remoteTimeout) {
+        this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+        this.webClient = webClientBuilder.build();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.advertisedHost = advertisedHost;
+        this.remoteTimeout = remoteTimeout;
+    }
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        StreamsBuilderFactoryBean factoryBean = streamsBuilderFactoryBean.getIfAvailable();
+        if (factoryBean == null || event.getApplicationContext().getServerNamespace() != null) {
+            return;
+        }
+
+        localHost = new HostInfo(advertisedHost, event.getWebServer().getPort());
+        Properties streamsConfiguration = new Properties();
+        streamsConfiguration.putAll(factoryBean.getStreamsConfiguration());
+        streamsConfiguration.put(StreamsConfig.APPLICATION_SERVER_CONFIG, localHost.host() + ":" + localHost.port());
+        factoryBean.setStreamsConfiguration(streamsConfiguration);
+        factoryBean.start();
+        log.info("User view started, serving interactive queries as {}", streamsConfiguration.get(StreamsConfig.APPLICATION_SERVER_CONFIG));
+    }
+
+    public Mono<User> findById(String id) {
+        return find(USERS_BY_ID, id);
+    }
+
+    public Mono<User> findByEmail(String email) {
+        return find(USERS_BY_EMAIL, email);
+    }
+
+    public Mono<User> findByMobileNo(String mobileNo) {
+        return find(USERS_BY_MOBILE_NO, mobileNo);
+    }
+
+    /**
+     * Reads the key from the local partition of the store only, used to answer other replicas.
+     */
+    public Mono<String> findLocal(String store, String key) {
+        KafkaStreams kafkaStreams = runningKafkaStreams();
+        if (kafkaStreams == null) {
+            return Mono.empty();
+        }
+
+        return Mono.fromCallable(() -> kafkaStreams.store(StoreQueryParameters.fromNameAndType(store, QueryableStoreTypes.<String, String>keyValueStore()))
+                .get(key));
+    }
+
+    private Mono<User> find(String store, String key) {
+        KafkaStreams kafkaStreams = runningKafkaStreams();
+        if (kafkaStreams == null) {
+            return Mono.empty();
+        }
+
+        KeyQueryMetadata keyQueryMetadata = kafkaStreams.queryMetadataForKey(store, key, Serdes.String().serializer());
+        if (keyQueryMetadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(keyQueryMetadata)) {
+            count(store, "unavailable");
+            return Mono.empty();
+        }
+
+        boolean local = keyQueryMetadata.activeHost().equals(localHost);
+        Mono<String> user = local ? findLocal(store, key) : findRemote(keyQueryMetadata.activeHost(), store, key);
+
+        return user.flatMap(json -> Mono.fromCallable(() -> objectMapper.readValue(json, User.class)))
+                .doOnSuccess(found -> count(store, (local ? "local" : "remote") + (found == null ? "-miss" : "-hit")))
+                .onErrorResume(e -> {
+                    log.warn("Unable to read {} from user view store {}", key, store, e);
+                    count(store, "error");
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<String> findRemote(HostInfo hostInfo, String store, String key) {
+        return webClient.get()
+                .uri("http://{host}:{port}/internal/user-view/{store}/{key}", hostInfo.host(), hostInfo.port(), store, key)
+                .exchangeToMono(response -> response.statusCode().is2xxSuccessful() ? response.bodyToMono(String.class) : Mono.empty())
+                .timeout(remoteTimeout);
+    }
+
+    private KafkaStreams runningKafkaStreams() {
+        StreamsBuilderFactoryBean factoryBean = streamsBuilderFactoryBean.getIfAvailable();
+        KafkaStreams kafkaStreams = factoryBean == null ? null : factoryBean.getKafkaStreams();
+        return kafkaStreams != null && kafkaStreams.state().isRunningOrRebalancing() ? kafkaStreams : null;
+    }
+
+    private void count(String store, String result) {
+        meterRegistry.counter("user.view.requests", "store", store, "result", result).increment();
+    }
+}
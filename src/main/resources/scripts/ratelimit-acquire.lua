@@ -0,0 +1,39 @@
+-- Token buckets, one per key. A token is only taken when every bucket has one, so the limits are applied atomically.
+-- KEYS: bucket keys
+-- ARGV: per key, capacity then refill rate in tokens per millisecond
+-- Returns the milliseconds to wait per key, all zero when a token was taken
+-- Time is read from Redis rather than passed in, so the clocks of the replicas cannot skew the refill. Scripts calling
+-- TIME before writing need effects replication, the default since Redis 5.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local tokens = {}
+local waits = {}
+local rejected = false
+
+for i, key in ipairs(KEYS) do
+    local capacity = tonumber(ARGV[i * 2 - 1])
+    local rate = tonumber(ARGV[i * 2])
+    local bucket = redis.call('HMGET', key, 'tokens', 'timestamp')
+    local available = tonumber(bucket[1]) or capacity
+    local timestamp = tonumber(bucket[2]) or now
+
+    available = math.min(capacity, available + math.max(0, now - timestamp) * rate)
+    waits[i] = 0
+    if available < 1 then
+        waits[i] = math.ceil((1 - available) / rate)
+        rejected = true
+    end
+    tokens[i] = available
+end
+
+if rejected then
+    return waits
+end
+
+for i, key in ipairs(KEYS) do
+    local capacity = tonumber(ARGV[i * 2 - 1])
+    local rate = tonumber(ARGV[i * 2])
+    redis.call('HMSET', key, 'tokens', tostring(tokens[i] - 1), 'timestamp', tostring(now))
+    redis.call('PEXPIRE', key, math.ceil(capacity / rate))
+end
+return waits
@@ -0,0 +1,26 @@
+-- KEYS[1]: verification token key, KEYS[2]: failed attempts key
+-- ARGV[1]: presented token, ARGV[2]: maximum failed attempts
+-- Returns 1 when verified (the token is consumed), 0 on mismatch, -1 when no token exists, -2 when attempts are exhausted
+local stored = redis.call('GET', KEYS[1])
+if not stored then
+    return -1
+end
+
+if stored == ARGV[1] then
+    redis.call('DEL', KEYS[1], KEYS[2])
+    return 1
+end
+
+local attempts = redis.call('INCR', KEYS[2])
+if attempts == 1 then
+    local ttl = redis.call('PTTL', KEYS[1])
+    if ttl > 0 then
+        redis.call('PEXPIRE', KEYS[2], ttl)
+    end
+end
+
+if attempts >= tonumber(ARGV[2]) then
+    redis.call('DEL', KEYS[1], KEYS[2])
+    return -2
+end
+return 0
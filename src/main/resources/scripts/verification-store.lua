@@ -0,0 +1,5 @@
+-- KEYS[1]: verification token key, KEYS[2]: failed attempts key
+-- ARGV[1]: token, ARGV[2]: time to live in milliseconds
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+redis.call('DEL', KEYS[2])
+return 1
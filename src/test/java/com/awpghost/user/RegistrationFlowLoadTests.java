@@ -0,0 +1,387 @@
+package com.awpghost.user;
+
+import com.awpghost.user.persistence.repositories.InMemoryReactiveUserRepository;
+import com.awpghost.user.persistence.repositories.ReactiveUserRepository;
+import com.awpghost.user.services.cache.UserCache;
+import com.awpghost.user.services.notifications.DeliveryReceiptListener;
+import com.awpghost.user.services.view.UserChangePublisher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives the register, OTP and verify flow through HTTP against the whole application and reports throughput and
+ * latency percentiles per scenario. Kafka is an embedded broker, Redis an in-process mock server and ArangoDB is
+ * replaced with {@link InMemoryReactiveUserRepository}, so it runs offline. OTPs are read from the SMS requests
+ * published to {@value #SMS_TOPIC}, as the SMS gateway would. Verify reads the user from the security context, here
+ * filled from the {@value #USER_HEADER} header.
+ * <p>
+ * Run with {@code ./gradlew loadTest}, settings are system properties: {@code load.users}, {@code load.concurrency},
+ * {@code load.warmup-users} and {@code load.scenarios}, a comma separated subset of {@code register}, {@code otp} and
+ * {@code verify}. Each scenario runs over every user before the next starts, and a scenario that is not selected
+ * still runs, unreported, when a selected one needs its results.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.cloud.stream.kafka.binder.brokers=${spring.embedded.kafka.brokers}",
+		"spring.application.name=user-service-load-test",
+		"spring.cloud.config.enabled=false",
+		"spring.cloud.bus.enabled=false",
+		"spring.cloud.kubernetes.enabled=false",
+		"eureka.client.enabled=false",
+		"spring.zipkin.enabled=false",
+		"arangodb.indexes.enabled=false",
+		// Every user asks for one OTP, the global limit would cap the measured throughput
+		"ratelimit.enabled=false",
+		// Request logging would dominate the latencies
+		"logging.level.com.awpghost.user=WARN"
+})
+@EmbeddedKafka(partitions = 3, topics = {"email.send", RegistrationFlowLoadTests.SMS_TOPIC, UserChangePublisher.TOPIC, UserCache.INVALIDATION_TOPIC,
+		DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC, DeliveryReceiptListener.MOBILE_RECEIPTS_TOPIC})
+class RegistrationFlowLoadTests {
+
+	static final String USER_HEADER = "X-Load-Test-User";
+
+	static final String SMS_TOPIC = "mobile.send";
+
+	private static final Pattern OTP_PATTERN = Pattern.compile("Your OTP is (\\w+)\\.");
+
+	// Latest OTP sent to each mobile number
+	private static final Map<String, String> SENT_OTPS = new ConcurrentHashMap<>();
+
+	private static final Duration SMS_TIMEOUT = Duration.ofSeconds(30);
+
+	private static final String REGISTER = "register";
+
+	private static final String OTP = "otp";
+
+	private static final String VERIFY = "verify";
+
+	private static final List<String> FLOW = List.of(REGISTER, OTP, VERIFY);
+
+	private static final int USERS = Integer.getInteger("load.users", 5000);
+
+	private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+
+	private static final int WARMUP_USERS = Integer.getInteger("load.warmup-users", 1000);
+
+	private static final List<String> SCENARIOS = scenarios(System.getProperty("load.scenarios", String.join(",", FLOW)));
+
+	private static final Duration SCENARIO_TIMEOUT = Duration.ofMinutes(10);
+
+	// Stopped with the JVM, after the application context that uses it
+	private static final RedisServer REDIS = startRedis();
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	@LocalServerPort
+	private int port;
+
+	@DynamicPropertySource
+	static void redisProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.redis.host", REDIS::getHost);
+		registry.add("spring.redis.port", REDIS::getBindPort);
+	}
+
+	@Test
+	void registerOtpAndVerify() {
+		ConnectionProvider connectionProvider = ConnectionProvider.builder("load-test")
+				.maxConnections(CONCURRENCY)
+				.pendingAcquireMaxCount(-1)
+				.build();
+		WebClient webClient = WebClient.builder()
+				.baseUrl("http://localhost:" + port)
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+				.build();
+
+		try {
+			// Warms up the JIT, connections and Kafka producers, not reported
+			runFlow(webClient, WARMUP_USERS);
+			List<ScenarioResult> results = runFlow(webClient, USERS);
+
+			System.out.printf("%nLoad test: %d users, concurrency %d%n", USERS, CONCURRENCY);
+			System.out.printf("%-10s %9s %7s %10s %9s %9s %9s %9s%n", "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+			results.stream().filter(result -> SCENARIOS.contains(result.scenario)).forEach(ScenarioResult::print);
+
+			results.forEach(result -> assertEquals(0, result.errors, () -> result.scenario + " failed: " + result.firstError.get()));
+		} finally {
+			connectionProvider.dispose();
+		}
+	}
+
+	private List<ScenarioResult> runFlow(WebClient webClient, int userCount) {
+		List<LoadUser> users = IntStream.range(0, userCount)
+				.mapToObj(ignored -> new LoadUser(SEQUENCE.incrementAndGet()))
+				.collect(Collectors.toList());
+
+		int lastScenario = SCENARIOS.stream().mapToInt(FLOW::indexOf).max().orElse(-1);
+		List<ScenarioResult> results = new ArrayList<>();
+		for (String scenario : FLOW.subList(0, lastScenario + 1)) {
+			switch (scenario) {
+				case REGISTER:
+					results.add(run(REGISTER, users, user -> true, user -> register(webClient, user)));
+					break;
+				case OTP:
+					results.add(run(OTP, users, user -> user.id != null, user -> requestOtp(webClient, user)));
+					receiveOtps(users);
+					break;
+				default:
+					results.add(run(VERIFY, users, user -> user.otp != null, user -> verify(webClient, user)));
+			}
+		}
+		return results;
+	}
+
+	private static ScenarioResult run(String scenario, List<LoadUser> users, Predicate<LoadUser> ready, Function<LoadUser, Mono<?>> request) {
+		ScenarioResult result = new ScenarioResult(scenario);
+		long started = System.nanoTime();
+
+		Flux.fromIterable(users)
+				.filter(ready)
+				.flatMap(user -> Mono.defer(() -> {
+					long requestStarted = System.nanoTime();
+					return request.apply(user)
+							.doOnSuccess(ignored -> result.latencies.recordValue(System.nanoTime() - requestStarted))
+							.onErrorResume(throwable -> {
+								result.errors.incrementAndGet();
+								result.firstError.compareAndSet(null, throwable.toString());
+								return Mono.empty();
+							});
+				}), CONCURRENCY)
+				.blockLast(SCENARIO_TIMEOUT);
+
+		result.elapsedNanos = System.nanoTime() - started;
+		return result;
+	}
+
+	private static Mono<String> register(WebClient webClient, LoadUser user) {
+		return webClient.post()
+				.uri("/user/register")
+				.bodyValue(Map.of(
+						"firstName", "Load",
+						"lastName", "User " + user.sequence,
+						"email", "load-" + user.sequence + "@example.com",
+						"mobileNo", user.mobileNo))
+				.retrieve()
+				.bodyToMono(JsonNode.class)
+				.map(body -> body.get("id").asText())
+				.doOnNext(id -> user.id = id);
+	}
+
+	private static Mono<JsonNode> requestOtp(WebClient webClient, LoadUser user) {
+		return webClient.post()
+				.uri(uriBuilder -> uriBuilder.path("/otp/mobileNo/otp")
+						.queryParam("id", user.id)
+						.queryParam("mobileNo", user.mobileNo)
+						.build())
+				.retrieve()
+				.bodyToMono(JsonNode.class)
+				.doOnNext(body -> user.otpRequested = true);
+	}
+
+	/**
+	 * Waits for the SMS of every user whose OTP request succeeded. The OTP is published before the request is answered,
+	 * so the wait is only the consumer catching up, outside of the measured scenarios.
+	 */
+	private static void receiveOtps(List<LoadUser> users) {
+		long deadline = System.nanoTime() + SMS_TIMEOUT.toNanos();
+		for (LoadUser user : users) {
+			while (user.otpRequested && user.otp == null) {
+				user.otp = SENT_OTPS.get(user.mobileNo);
+				if (user.otp == null) {
+					if (System.nanoTime() > deadline) {
+						throw new IllegalStateException("No SMS received for " + user.mobileNo + " within " + SMS_TIMEOUT);
+					}
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+				}
+			}
+		}
+	}
+
+	private static Mono<Boolean> verify(WebClient webClient, LoadUser user) {
+		return webClient.get()
+				.uri(uriBuilder -> uriBuilder.path("/user/verify-mobileNo").queryParam("otp", user.otp).build())
+				.header(USER_HEADER, user.id)
+				.retrieve()
+				.bodyToMono(Boolean.class)
+				.flatMap(verified -> verified
+						? Mono.just(true)
+						: Mono.error(new IllegalStateException("OTP of user " + user.id + " was not accepted")));
+	}
+
+	private static List<String> scenarios(String scenarios) {
+		List<String> selected = Arrays.stream(scenarios.split(","))
+				.map(String::trim)
+				.filter(scenario -> !scenario.isEmpty())
+				.collect(Collectors.toList());
+		selected.stream()
+				.filter(scenario -> !FLOW.contains(scenario))
+				.findFirst()
+				.ifPresent(scenario -> {
+					throw new IllegalArgumentException("Unknown scenario: " + scenario + ", scenarios are " + FLOW);
+				});
+		return selected;
+	}
+
+	private static RedisServer startRedis() {
+		try {
+			RedisServer redisServer = RedisServer.newRedisServer();
+			redisServer.start();
+			return redisServer;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static final class LoadUser {
+		private final int sequence;
+
+		// No leading +, which a query string would decode as a space
+		private final String mobileNo;
+
+		private volatile String id;
+
+		private volatile boolean otpRequested;
+
+		private volatile String otp;
+
+		private LoadUser(int sequence) {
+			this.sequence = sequence;
+			this.mobileNo = String.format("601%08d", sequence);
+		}
+	}
+
+	private static final class ScenarioResult {
+		private final String scenario;
+
+		// Nanoseconds, resized as needed
+		private final Histogram latencies = new ConcurrentHistogram(3);
+
+		private final AtomicLong errors = new AtomicLong();
+
+		private final AtomicReference<String> firstError = new AtomicReference<>();
+
+		private long elapsedNanos;
+
+		private ScenarioResult(String scenario) {
+			this.scenario = scenario;
+		}
+
+		private void print() {
+			long requests = latencies.getTotalCount() + errors.get();
+			System.out.printf("%-10s %9d %7d %10.0f %9.2f %9.2f %9.2f %9.2f%n", scenario, requests, errors.get(),
+					requests / (elapsedNanos / 1e9),
+					millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+					millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+		}
+
+		private static double millis(long nanos) {
+			return nanos / 1e6;
+		}
+	}
+
+	@TestConfiguration
+	static class LoadTestConfigurations {
+
+		@Bean
+		@Primary
+		ReactiveUserRepository inMemoryReactiveUserRepository() {
+			return new InMemoryReactiveUserRepository();
+		}
+
+		@Bean
+		SmsGateway smsGateway(ObjectMapper objectMapper) {
+			return new SmsGateway(objectMapper);
+		}
+
+		/**
+		 * Stateless, no session is created, so no session is written to Redis on the measured path.
+		 */
+		@Bean
+		SecurityWebFilterChain loadTestSecurityWebFilterChain(ServerHttpSecurity http) {
+			ReactiveAuthenticationManager authenticationManager = authentication ->
+					Mono.just(new PreAuthenticatedAuthenticationToken(authentication.getPrincipal(), null, List.of()));
+			AuthenticationWebFilter authenticationWebFilter = new AuthenticationWebFilter(authenticationManager);
+			authenticationWebFilter.setServerAuthenticationConverter(exchange ->
+					Mono.justOrEmpty(exchange.getRequest().getHeaders().getFirst(USER_HEADER))
+							.map(userId -> new PreAuthenticatedAuthenticationToken(userId, null)));
+
+			return http.csrf().disable()
+					.httpBasic().disable()
+					.formLogin().disable()
+					.addFilterAt(authenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+					.authorizeExchange(exchanges -> exchanges.anyExchange().permitAll())
+					.build();
+		}
+	}
+
+	/**
+	 * Receives the SMS requests in place of the SMS gateway, keeping the OTP sent to each mobile number.
+	 */
+	static class SmsGateway {
+
+		private final ObjectMapper objectMapper;
+
+		SmsGateway(ObjectMapper objectMapper) {
+			this.objectMapper = objectMapper;
+		}
+
+		@KafkaListener(topics = SMS_TOPIC, groupId = "load-test-sms-gateway", properties = "auto.offset.reset=earliest")
+		public void onSms(String message) throws JsonProcessingException {
+			JsonNode sms = objectMapper.readTree(message);
+			Matcher otp = OTP_PATTERN.matcher(sms.get("content").asText());
+			if (otp.find()) {
+				SENT_OTPS.put(sms.get("mobileNo").asText(), otp.group(1));
+			}
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.awpghost.user.dto.requests;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class UserFieldsTests {
+
+	@Test
+	void tagDoesNotDependOnFieldOrder() {
+		assertEquals(UserFields.parse("email,id").tag(), UserFields.parse("id, email").tag());
+	}
+
+	@Test
+	void tagsOfDifferentProjectionsDiffer() {
+		assertNotEquals(UserFields.parse("id").tag(), UserFields.parse("id,city").tag());
+		assertNotEquals(UserFields.parse("firstName,zip").tag(), UserFields.parse("lastName,zip").tag());
+		assertEquals("", UserFields.ALL.tag());
+	}
+}
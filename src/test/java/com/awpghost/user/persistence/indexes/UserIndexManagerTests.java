@@ -0,0 +1,31 @@
+package com.awpghost.user.persistence.indexes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class UserIndexManagerTests {
+
+	private static final Pattern BIND_PARAMETER = Pattern.compile("@@?\\w+");
+
+	@Test
+	void everyPlanCheckedQueryBindsExactlyItsParameters() {
+		assertFalse(UserIndexManager.planCheckedQueries("user").isEmpty());
+
+		UserIndexManager.planCheckedQueries("user").forEach((query, bindVars) -> {
+			Set<String> parameters = new HashSet<>();
+			Matcher matcher = BIND_PARAMETER.matcher(query);
+			while (matcher.find()) {
+				// @name binds "name", @@name binds the collection parameter "@name"
+				parameters.add(matcher.group().substring(1));
+			}
+			assertEquals(parameters, bindVars.keySet(), query);
+		});
+	}
+}
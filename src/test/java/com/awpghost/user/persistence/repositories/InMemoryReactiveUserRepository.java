@@ -0,0 +1,115 @@
+package com.awpghost.user.persistence.repositories;
+
+import com.awpghost.user.dto.requests.DeliveryReceipt;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.persistence.models.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory stand-in for the ArangoDB backed repository, so benchmarks measure the service code only and the load test
+ * runs without a database.
+ */
+public class InMemoryReactiveUserRepository implements ReactiveUserRepository {
+    private final Map<String, User> usersById = new ConcurrentHashMap<>();
+
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+
+    private final Map<String, String> idsByMobileNo = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<User> save(User user) {
+        return Mono.fromCallable(() -> store(user));
+    }
+
+    @Override
+    public Flux<InsertResult> saveAll(List<User> users) {
+        return Flux.fromIterable(users).map(user -> InsertResult.saved(store(user)));
+    }
+
+    @Override
+    public Mono<User> findById(String id) {
+        return Mono.justOrEmpty(usersById.get(id));
+    }
+
+    @Override
+    public Mono<User> findByEmail(String email) {
+        return Mono.justOrEmpty(idsByEmail.get(email)).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<User> findByMobileNo(String mobileNo) {
+        return Mono.justOrEmpty(idsByMobileNo.get(mobileNo)).flatMap(this::findById);
+    }
+
+    // Projections are not applied, the stored users are returned whole
+    @Override
+    public Flux<User> findAllByIds(Collection<String> ids, List<String> attributes) {
+        return Flux.fromIterable(ids).map(usersById::get).filter(Objects::nonNull);
+    }
+
+    @Override
+    public Flux<User> findAllByEmails(Collection<String> emails, List<String> attributes) {
+        return Flux.fromIterable(emails).flatMap(this::findByEmail);
+    }
+
+    @Override
+    public Flux<User> findAllByMobileNos(Collection<String> mobileNos, List<String> attributes) {
+        return Flux.fromIterable(mobileNos).flatMap(this::findByMobileNo);
+    }
+
+    @Override
+    public Flux<User> findPageAfter(String afterKey, int limit, Duration cursorTimeToLive) {
+        String after = afterKey == null ? "" : afterKey;
+        return Flux.fromStream(usersById.keySet().stream().filter(id -> id.compareTo(after) > 0).sorted().limit(limit))
+                .map(usersById::get);
+    }
+
+    @Override
+    public Flux<User> search(List<String> terms, int offset, int limit, Duration maxRuntime) {
+        return Flux.fromIterable(usersById.values())
+                .filter(user -> terms.stream().allMatch(term -> Stream.of(user.getFirstName(), user.getLastName(), user.getEmail(), user.getMobileNo(), user.getCity())
+                        .anyMatch(value -> value != null && value.toLowerCase().startsWith(term.toLowerCase()))))
+                .skip(offset)
+                .take(limit);
+    }
+
+    @Override
+    public Flux<User> updateDeliveryStatus(VerificationType verificationType, Collection<DeliveryReceipt> receipts) {
+        return Flux.fromIterable(receipts).flatMap(receipt -> {
+            if (verificationType == VerificationType.EMAIL) {
+                return findByEmail(receipt.getRecipient()).doOnNext(user -> {
+                    user.setEmailDeliveryStatus(receipt.getStatus());
+                    user.setEmailDeliveryUpdatedAt(receipt.getTimestamp());
+                });
+            }
+            return findByMobileNo(receipt.getRecipient()).doOnNext(user -> {
+                user.setMobileNoDeliveryStatus(receipt.getStatus());
+                user.setMobileNoDeliveryUpdatedAt(receipt.getTimestamp());
+            });
+        });
+    }
+
+    private User store(User user) {
+        if (user.getId() == null) {
+            user.setId(UUID.randomUUID().toString());
+        }
+        usersById.put(user.getId(), user);
+        if (user.getEmail() != null) {
+            idsByEmail.put(user.getEmail(), user.getId());
+        }
+        if (user.getMobileNo() != null) {
+            idsByMobileNo.put(user.getMobileNo(), user.getId());
+        }
+        return user;
+    }
+}
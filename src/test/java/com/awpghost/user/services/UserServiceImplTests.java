@@ -0,0 +1,41 @@
+package com.awpghost.user.services;
+
+import com.awpghost.user.persistence.indexes.UserSearchViewManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserServiceImplTests {
+
+	@Test
+	void searchTermsAreSplitOnWhitespace() {
+		assertEquals(List.of("john", "doe"), UserServiceImpl.searchTerms("  john \t doe "));
+		assertEquals(List.of(), UserServiceImpl.searchTerms("   "));
+		assertEquals(List.of(), UserServiceImpl.searchTerms(null));
+	}
+
+	@Test
+	void termsShorterThanTheShortestIndexedPrefixAreDropped() {
+		assertEquals(List.of("jo"), UserServiceImpl.searchTerms("j jo"));
+	}
+
+	@Test
+	void termsLongerThanTheLongestIndexedPrefixAreCut() {
+		String longLocalPart = "christopher.alexander.montgomery";
+
+		List<String> terms = UserServiceImpl.searchTerms(longLocalPart);
+
+		assertEquals(List.of(longLocalPart.substring(0, UserSearchViewManager.MAX_PREFIX_LENGTH)), terms);
+	}
+
+	@Test
+	void lengthsCountCodePoints() {
+		// 20 characters outside the basic multilingual plane, each one code point but two chars
+		String emoji = "😀".repeat(UserSearchViewManager.MAX_PREFIX_LENGTH);
+
+		assertEquals(List.of(emoji), UserServiceImpl.searchTerms(emoji + "😀"));
+		assertEquals(List.of(), UserServiceImpl.searchTerms("😀"));
+	}
+}
@@ -0,0 +1,84 @@
+package com.awpghost.user.services.cache;
+
+import com.awpghost.user.persistence.models.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserLookupCoalescerTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final UserLookupCoalescer userLookupCoalescer = new UserLookupCoalescer(meterRegistry);
+
+	private final User user = User.builder().id("1").email("ghost.user@example.com").mobileNo("+60123456789").build();
+
+	@Test
+	void concurrentLookupsShareOneExecution() {
+		AtomicInteger executions = new AtomicInteger();
+		Sinks.One<User> result = Sinks.one();
+
+		Mono<User> first = userLookupCoalescer.lookup(UserLookupCoalescer.ID, "1", () -> {
+			executions.incrementAndGet();
+			return result.asMono();
+		}).cache();
+		Mono<User> second = userLookupCoalescer.lookup(UserLookupCoalescer.ID, "1", () -> {
+			executions.incrementAndGet();
+			return result.asMono();
+		}).cache();
+		first.subscribe();
+		second.subscribe();
+
+		result.tryEmitValue(user);
+
+		assertSame(user, first.block());
+		assertSame(user, second.block());
+		assertEquals(1, executions.get());
+		assertEquals(1, count("executed"));
+		assertEquals(1, count("coalesced"));
+	}
+
+	@Test
+	void completedLookupsAreNotReused() {
+		AtomicInteger executions = new AtomicInteger();
+
+		for (int i = 0; i < 3; i++) {
+			userLookupCoalescer.lookup(UserLookupCoalescer.ID, "1", () -> {
+				executions.incrementAndGet();
+				return Mono.just(user);
+			}).block();
+		}
+
+		assertEquals(3, executions.get());
+	}
+
+	@Test
+	void sharedLookupsAnswerLaterLookupsByAnyKey() {
+		AtomicInteger executions = new AtomicInteger();
+
+		User found = userLookupCoalescer.lookup(UserLookupCoalescer.ID, "1", () -> {
+					executions.incrementAndGet();
+					return Mono.just(user);
+				})
+				.flatMap(byId -> userLookupCoalescer.lookup(UserLookupCoalescer.MOBILE_NO, byId.getMobileNo(), () -> {
+					executions.incrementAndGet();
+					return Mono.just(user);
+				}))
+				.contextWrite(UserLookupCoalescer.sharedLookups())
+				.block();
+
+		assertSame(user, found);
+		assertEquals(1, executions.get());
+		assertEquals(1, count("reused"));
+	}
+
+	private double count(String result) {
+		return meterRegistry.get("user.lookup.coalescing").tag("result", result).counter().count();
+	}
+}
@@ -0,0 +1,111 @@
+package com.awpghost.user.services.notifications;
+
+import com.awpghost.user.configurations.kafka.KafkaConsumerConfigurations;
+import com.awpghost.user.configurations.kafka.KafkaProducerConfigurations;
+import com.awpghost.user.dto.requests.DeliveryReceipt;
+import com.awpghost.user.enums.DeliveryStatus;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.services.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the sustained throughput of the receipt listener against an embedded broker, with the receipts applied by
+ * a stub, so the batching and commit overhead of the listener is what is measured. Run with {@code ./gradlew loadTest},
+ * {@code load.receipts} sets the number of receipts.
+ */
+@Tag("load")
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 3, topics = {DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC, DeliveryReceiptListener.MOBILE_RECEIPTS_TOPIC,
+		DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC + ".DLT"})
+@TestPropertySource(properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.application.name=user-service-load-test"
+})
+class DeliveryReceiptListenerLoadTests {
+
+	private static final Logger log = LogManager.getLogger(DeliveryReceiptListenerLoadTests.class);
+
+	private static final int RECEIPTS = Integer.getInteger("load.receipts", 20000);
+
+	private static final AtomicLong APPLIED = new AtomicLong();
+
+	@Autowired
+	private KafkaTemplate<String, String> kafkaTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void sustainedThroughput() throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < RECEIPTS; i++) {
+			String topic = i % 2 == 0 ? DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC : DeliveryReceiptListener.MOBILE_RECEIPTS_TOPIC;
+			DeliveryReceipt receipt = DeliveryReceipt.builder()
+					.recipient("recipient-" + i)
+					.status(DeliveryStatus.DELIVERED)
+					.timestamp(System.currentTimeMillis())
+					.build();
+			kafkaTemplate.send(topic, receipt.getRecipient(), objectMapper.writeValueAsString(receipt));
+		}
+		kafkaTemplate.flush();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+		while (APPLIED.get() < RECEIPTS && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		log.info("Applied {} delivery receipts in {} s ({} receipts/s)", APPLIED.get(), String.format("%.2f", seconds),
+				String.format("%.0f", APPLIED.get() / seconds));
+
+		assertEquals(RECEIPTS, APPLIED.get());
+	}
+
+	@Configuration
+	@Import({KafkaConsumerConfigurations.class, KafkaProducerConfigurations.class, DeliveryReceiptListener.class})
+	static class TestConfigurations {
+
+		@Bean
+		ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+
+		@Bean
+		LocalValidatorFactoryBean validator() {
+			return new LocalValidatorFactoryBean();
+		}
+
+		@Bean
+		UserService userService() {
+			UserService userService = Mockito.mock(UserService.class);
+			when(userService.applyDeliveryReceipts(any(VerificationType.class), anyList())).thenAnswer(invocation -> {
+				List<DeliveryReceipt> receipts = invocation.getArgument(1);
+				return Mono.just(APPLIED.addAndGet(receipts.size()));
+			});
+			return userService;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.awpghost.user.services.notifications;
+
+import com.awpghost.user.configurations.kafka.KafkaConsumerConfigurations;
+import com.awpghost.user.configurations.kafka.KafkaProducerConfigurations;
+import com.awpghost.user.dto.requests.DeliveryReceipt;
+import com.awpghost.user.enums.DeliveryStatus;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.services.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the receipt listener against an embedded broker, checking that a poison record ends up on the dead-letter topic
+ * without losing the receipts around it.
+ */
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 3, topics = {DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC, DeliveryReceiptListener.MOBILE_RECEIPTS_TOPIC,
+		DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC + ".DLT"})
+@TestPropertySource(properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.application.name=user-service-test",
+		"kafka.consumer.retry.interval=10ms"
+})
+class DeliveryReceiptListenerTests {
+
+	private static final int RECEIPTS = 200;
+
+	private static final AtomicLong APPLIED = new AtomicLong();
+
+	@Autowired
+	private KafkaTemplate<String, String> kafkaTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+	@Test
+	void appliesReceiptsAndDeadLettersPoisonRecords() throws Exception {
+		for (int i = 0; i < RECEIPTS; i++) {
+			String topic = i % 2 == 0 ? DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC : DeliveryReceiptListener.MOBILE_RECEIPTS_TOPIC;
+			DeliveryReceipt receipt = DeliveryReceipt.builder()
+					.recipient("recipient-" + i)
+					.status(DeliveryStatus.DELIVERED)
+					.timestamp(System.currentTimeMillis())
+					.build();
+			kafkaTemplate.send(topic, receipt.getRecipient(), objectMapper.writeValueAsString(receipt));
+			if (i == RECEIPTS / 2) {
+				kafkaTemplate.send(DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC, "poison", "{not json");
+			}
+		}
+		kafkaTemplate.flush();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (APPLIED.get() < RECEIPTS && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(RECEIPTS, APPLIED.get());
+
+		try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<String, String>(
+				KafkaTestUtils.consumerProps("dlt-check", "false", embeddedKafkaBroker)).createConsumer()) {
+			embeddedKafkaBroker.consumeFromAnEmbeddedTopic(consumer, DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC + ".DLT");
+			ConsumerRecord<String, String> deadLetter = KafkaTestUtils.getSingleRecord(consumer,
+					DeliveryReceiptListener.EMAIL_RECEIPTS_TOPIC + ".DLT", Duration.ofSeconds(30).toMillis());
+			assertEquals("{not json", deadLetter.value());
+		}
+	}
+
+	@Configuration
+	@Import({KafkaConsumerConfigurations.class, KafkaProducerConfigurations.class, DeliveryReceiptListener.class})
+	static class TestConfigurations {
+
+		@Bean
+		ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+
+		@Bean
+		LocalValidatorFactoryBean validator() {
+			return new LocalValidatorFactoryBean();
+		}
+
+		@Bean
+		UserService userService() {
+			UserService userService = Mockito.mock(UserService.class);
+			when(userService.applyDeliveryReceipts(any(VerificationType.class), anyList())).thenAnswer(invocation -> {
+				List<DeliveryReceipt> receipts = invocation.getArgument(1);
+				return Mono.just(APPLIED.addAndGet(receipts.size()));
+			});
+			return userService;
+		}
+	}
+}
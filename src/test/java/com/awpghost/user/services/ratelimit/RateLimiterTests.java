@@ -0,0 +1,118 @@
+package com.awpghost.user.services.ratelimit;
+
+import com.awpghost.user.configurations.ratelimit.RateLimitProperties;
+import com.awpghost.user.configurations.resilience.ResilienceProperties;
+import com.awpghost.user.exceptions.RateLimitExceededException;
+import com.awpghost.user.services.resilience.BackendGuard;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the token bucket script against an in-process Redis.
+ */
+class RateLimiterTests {
+
+	private static final RateLimitProperties.Limit UNLIMITED = new RateLimitProperties.Limit(1000000, Duration.ofSeconds(1));
+
+	private static RedisServer redisServer;
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	@BeforeAll
+	static void startRedis() throws IOException {
+		redisServer = RedisServer.newRedisServer();
+		redisServer.start();
+		connectionFactory = new LettuceConnectionFactory(redisServer.getHost(), redisServer.getBindPort());
+		connectionFactory.afterPropertiesSet();
+	}
+
+	@AfterAll
+	static void stopRedis() throws IOException {
+		connectionFactory.destroy();
+		redisServer.stop();
+	}
+
+	@BeforeEach
+	void emptyBuckets() {
+		connectionFactory.getConnection().serverCommands().flushAll();
+	}
+
+	@Test
+	void emptyBucketIsRejectedWithTheTimeToTheNextToken() {
+		RateLimiter rateLimiter = rateLimiter(new RateLimitProperties.Limit(2, Duration.ofMinutes(1)), UNLIMITED);
+
+		rateLimiter.acquire(RateLimiter.MOBILE_OTP, "user-1", "60100000001").block();
+		rateLimiter.acquire(RateLimiter.MOBILE_OTP, "user-1", "60100000002").block();
+		RateLimitExceededException rejected = assertThrows(RateLimitExceededException.class,
+				() -> rateLimiter.acquire(RateLimiter.MOBILE_OTP, "user-1", "60100000003").block());
+
+		// A token every 30 seconds, the first was taken moments ago
+		Duration retryAfter = rejected.getRetryAfter();
+		assertTrue(retryAfter.compareTo(Duration.ofSeconds(25)) > 0 && retryAfter.compareTo(Duration.ofSeconds(30)) <= 0,
+				"Retry after " + retryAfter);
+	}
+
+	@Test
+	void rejectedRequestTakesNoTokenFromTheOtherBuckets() {
+		RateLimiter rateLimiter = rateLimiter(UNLIMITED, new RateLimitProperties.Limit(1, Duration.ofMinutes(1)));
+
+		rateLimiter.acquire(RateLimiter.EMAIL_TOKEN, "user-1", "a@example.com").block();
+		assertThrows(RateLimitExceededException.class,
+				() -> rateLimiter.acquire(RateLimiter.EMAIL_TOKEN, "user-2", "a@example.com").block());
+
+		// The rejected request left the bucket of user-2 full
+		RateLimiter strictUsers = rateLimiter(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)), UNLIMITED);
+		assertDoesNotThrow(() -> strictUsers.acquire(RateLimiter.EMAIL_TOKEN, "user-2", "b@example.com").block());
+	}
+
+	@Test
+	void recipientOnlyAcquireLeavesTheUserBucketAlone() {
+		RateLimiter rateLimiter = rateLimiter(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)), new RateLimitProperties.Limit(1, Duration.ofMinutes(1)));
+
+		rateLimiter.acquire(RateLimiter.EMAIL_TOKEN, "user-1", null).block();
+		rateLimiter.acquireRecipient(RateLimiter.EMAIL_TOKEN, "a@example.com").block();
+
+		assertThrows(RateLimitExceededException.class,
+				() -> rateLimiter.acquireRecipient(RateLimiter.EMAIL_TOKEN, "a@example.com").block());
+		assertThrows(RateLimitExceededException.class,
+				() -> rateLimiter.acquire(RateLimiter.EMAIL_TOKEN, "user-1", null).block());
+		assertDoesNotThrow(() -> rateLimiter.acquire(RateLimiter.EMAIL_TOKEN, "user-2", null).block());
+	}
+
+	@Test
+	void bucketRefillsOverTime() throws InterruptedException {
+		RateLimiter rateLimiter = rateLimiter(new RateLimitProperties.Limit(1, Duration.ofMillis(200)), UNLIMITED);
+
+		rateLimiter.acquire(RateLimiter.MOBILE_OTP, "user-1", null).block();
+		RateLimitExceededException rejected = assertThrows(RateLimitExceededException.class,
+				() -> rateLimiter.acquire(RateLimiter.MOBILE_OTP, "user-1", null).block());
+		assertTrue(rejected.getRetryAfter().compareTo(Duration.ofMillis(200)) <= 0, "Retry after " + rejected.getRetryAfter());
+
+		Thread.sleep(rejected.getRetryAfter().toMillis() + 50);
+
+		assertDoesNotThrow(() -> rateLimiter.acquire(RateLimiter.MOBILE_OTP, "user-1", null).block());
+	}
+
+	private static RateLimiter rateLimiter(RateLimitProperties.Limit user, RateLimitProperties.Limit recipient) {
+		RateLimitProperties rateLimitProperties = new RateLimitProperties();
+		rateLimitProperties.setUser(user);
+		rateLimitProperties.setRecipient(recipient);
+		rateLimitProperties.setGlobal(UNLIMITED);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		return new RateLimiter(new ReactiveStringRedisTemplate(connectionFactory), rateLimitProperties, meterRegistry,
+				new BackendGuard(new ResilienceProperties(), meterRegistry));
+	}
+}
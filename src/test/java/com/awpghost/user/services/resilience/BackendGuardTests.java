@@ -0,0 +1,135 @@
+package com.awpghost.user.services.resilience;
+
+import com.arangodb.ArangoDBException;
+import com.awpghost.user.configurations.resilience.ResilienceProperties;
+import com.awpghost.user.enums.BackendDependency;
+import com.awpghost.user.exceptions.BackendUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackendGuardTests {
+
+	private static final Duration TIMEOUT = Duration.ofMillis(100);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	// Stand-in for Redis, answering after whatever latency is injected
+	private final AtomicReference<Duration> latency = new AtomicReference<>(Duration.ofMillis(2));
+
+	private final Mono<String> backend = Mono.defer(() -> Mono.delay(latency.get()).thenReturn("OK"));
+
+	@Test
+	void healthyBackendIsNotShed() {
+		BackendGuard backendGuard = backendGuard();
+
+		List<Call> calls = run(backendGuard, 200, 10);
+
+		assertTrue(calls.stream().allMatch(Call::succeeded));
+	}
+
+	@Test
+	void tailLatencyStaysBoundedWhenBackendSlowsDown() {
+		BackendGuard backendGuard = backendGuard();
+		run(backendGuard, 200, 10);
+
+		latency.set(Duration.ofSeconds(5));
+		List<Call> calls = run(backendGuard, 500, 100);
+
+		long[] latencies = calls.stream().mapToLong(Call::latencyNanos).sorted().toArray();
+		long p99 = latencies[(int) (latencies.length * 0.99) - 1];
+		long max = latencies[latencies.length - 1];
+		assertTrue(p99 < Duration.ofMillis(300).toNanos(), "p99 " + Duration.ofNanos(p99));
+		assertTrue(max < Duration.ofMillis(500).toNanos(), "max " + Duration.ofNanos(max));
+
+		assertTrue(calls.stream().noneMatch(Call::succeeded));
+		assertTrue(shed("limit") + shed("circuit-open") > 0);
+		assertTrue(backendGuard.limit(BackendDependency.REDIS).getLimit() < 20);
+		assertEquals(CircuitBreaker.State.OPEN, backendGuard.circuitBreaker(BackendDependency.REDIS).getState());
+	}
+
+	@Test
+	void slowBulkCallsDoNotShrinkTheInteractiveLimit() {
+		BackendGuard backendGuard = backendGuard();
+		int initialLimit = backendGuard.limit(BackendDependency.REDIS).getLimit();
+
+		// Above the latency threshold, as large batches are
+		latency.set(Duration.ofMillis(80));
+		Long succeeded = Flux.range(0, 40)
+				.flatMap(i -> backendGuard.bulk(BackendDependency.REDIS, backend), 4)
+				.count()
+				.block();
+
+		assertEquals(40, succeeded);
+		assertEquals(initialLimit, backendGuard.limit(BackendDependency.REDIS).getLimit());
+		assertEquals(8, backendGuard.bulkLimit(BackendDependency.REDIS).getLimit());
+	}
+
+	@Test
+	void failuresOpenOnlyTheCircuitOfTheFailingBackend() {
+		BackendGuard backendGuard = backendGuard();
+
+		fail(backendGuard, new ArangoDBException("Connection refused", 503));
+
+		assertEquals(CircuitBreaker.State.OPEN, backendGuard.circuitBreaker(BackendDependency.ARANGODB).getState());
+		assertEquals(CircuitBreaker.State.CLOSED, backendGuard.circuitBreaker(BackendDependency.REDIS).getState());
+	}
+
+	@Test
+	void clientErrorsDoNotOpenTheCircuit() {
+		BackendGuard backendGuard = backendGuard();
+
+		fail(backendGuard, new ArangoDBException("unique constraint violated", 409));
+
+		assertEquals(CircuitBreaker.State.CLOSED, backendGuard.circuitBreaker(BackendDependency.ARANGODB).getState());
+	}
+
+	private void fail(BackendGuard backendGuard, ArangoDBException arangoDBException) {
+		for (int i = 0; i < 50; i++) {
+			backendGuard.call(BackendDependency.ARANGODB, Mono.error(arangoDBException))
+					.onErrorResume(e -> Mono.empty())
+					.block();
+		}
+	}
+
+	private BackendGuard backendGuard() {
+		ResilienceProperties resilienceProperties = new ResilienceProperties();
+		resilienceProperties.setRedis(new ResilienceProperties.Backend(TIMEOUT, Duration.ofMillis(50), 20, 2, 50));
+		resilienceProperties.getRedis().setSlidingWindowSize(20);
+		resilienceProperties.getRedis().setOpenStateDuration(Duration.ofMinutes(1));
+		resilienceProperties.getArangodb().setSlidingWindowSize(20);
+		return new BackendGuard(resilienceProperties, meterRegistry);
+	}
+
+	private List<Call> run(BackendGuard backendGuard, int calls, int concurrency) {
+		return Flux.range(0, calls)
+				.flatMap(i -> Mono.defer(() -> {
+					long started = System.nanoTime();
+					return backendGuard.call(BackendDependency.REDIS, backend)
+							.map(result -> true)
+							.onErrorResume(BackendUnavailableException.class, e -> Mono.just(false))
+							.map(succeeded -> new Call(succeeded, System.nanoTime() - started));
+				}), concurrency)
+				.collectList()
+				.block();
+	}
+
+	private double shed(String reason) {
+		return meterRegistry.find("backend.calls.shed").tag("dependency", "redis").tag("reason", reason).counters().stream()
+				.mapToDouble(Counter::count)
+				.sum();
+	}
+
+	private record Call(boolean succeeded, long latencyNanos) {
+	}
+}
@@ -0,0 +1,49 @@
+package com.awpghost.user.services.tokens;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenGeneratorTests {
+
+	@Test
+	void otpIsFixedWidthNumeric() {
+		OtpGenerator otpGenerator = new SecureRandomOtpGenerator(6);
+
+		for (int i = 0; i < 10000; i++) {
+			String otp = otpGenerator.generate();
+			assertEquals(6, otp.length());
+			assertTrue(otp.chars().allMatch(Character::isDigit), otp);
+		}
+	}
+
+	@Test
+	void otpKeepsLeadingZeros() {
+		OtpGenerator otpGenerator = new SecureRandomOtpGenerator(1);
+
+		boolean zeroSeen = false;
+		for (int i = 0; i < 1000 && !zeroSeen; i++) {
+			zeroSeen = otpGenerator.generate().equals("0");
+		}
+		assertTrue(zeroSeen);
+	}
+
+	@Test
+	void otpLengthIsValidated() {
+		assertThrows(IllegalArgumentException.class, () -> new SecureRandomOtpGenerator(0));
+		assertThrows(IllegalArgumentException.class, () -> new SecureRandomOtpGenerator(19));
+	}
+
+	@Test
+	void tokenIsUrlSafe() {
+		TokenGenerator tokenGenerator = new SecureRandomTokenGenerator(16);
+
+		for (int i = 0; i < 10000; i++) {
+			String token = tokenGenerator.generate();
+			assertEquals(22, token.length());
+			assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.awpghost.user.services.verification;
+
+import com.awpghost.user.configurations.verification.EmailVerificationProperties;
+import com.awpghost.user.enums.EmailVerificationMode;
+import com.awpghost.user.enums.VerificationResult;
+import com.awpghost.user.enums.VerificationType;
+import com.awpghost.user.services.tokens.SecureRandomTokenGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SignedVerificationTokensTests {
+
+	private static final String OLD_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+	private static final String NEW_KEY = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+	@Test
+	void issuedTokenVerifies() {
+		SignedVerificationTokens tokens = tokens("old", Map.of("old", OLD_KEY));
+
+		String token = tokens.issue("user-1", VerificationType.EMAIL, Duration.ofMinutes(5));
+
+		assertEquals(VerificationResult.VERIFIED, tokens.verify(token, "user-1", VerificationType.EMAIL).block());
+	}
+
+	@Test
+	void tokenOfAnotherUserOrPurposeIsRejected() {
+		SignedVerificationTokens tokens = tokens("old", Map.of("old", OLD_KEY));
+
+		String token = tokens.issue("user-1", VerificationType.EMAIL, Duration.ofMinutes(5));
+
+		assertEquals(VerificationResult.MISMATCH, tokens.verify(token, "user-2", VerificationType.EMAIL).block());
+		assertEquals(VerificationResult.MISMATCH, tokens.verify(token, "user-1", VerificationType.MOBILE_NUMBER).block());
+	}
+
+	@Test
+	void tamperedTokenIsRejected() {
+		SignedVerificationTokens tokens = tokens("old", Map.of("old", OLD_KEY));
+
+		String token = tokens.issue("user-1", VerificationType.EMAIL, Duration.ofMinutes(5));
+		String[] parts = token.split("\\.");
+		String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("user-2\nEMAIL\n9999999999\nnonce".getBytes()) + "." + parts[2];
+
+		assertEquals(VerificationResult.MISMATCH, tokens.verify(forged, "user-2", VerificationType.EMAIL).block());
+		assertEquals(VerificationResult.MISMATCH, tokens.verify("not-a-token", "user-1", VerificationType.EMAIL).block());
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		SignedVerificationTokens tokens = tokens("old", Map.of("old", OLD_KEY));
+
+		String token = tokens.issue("user-1", VerificationType.EMAIL, Duration.ofSeconds(-1));
+
+		assertEquals(VerificationResult.EXPIRED, tokens.verify(token, "user-1", VerificationType.EMAIL).block());
+	}
+
+	@Test
+	void tokensOfRotatedKeysVerifyUntilTheKeyIsRemoved() {
+		String token = tokens("old", Map.of("old", OLD_KEY)).issue("user-1", VerificationType.EMAIL, Duration.ofMinutes(5));
+
+		SignedVerificationTokens rotated = tokens("new", Map.of("old", OLD_KEY, "new", NEW_KEY));
+		assertEquals(VerificationResult.VERIFIED, rotated.verify(token, "user-1", VerificationType.EMAIL).block());
+
+		SignedVerificationTokens retired = tokens("new", Map.of("new", NEW_KEY));
+		assertEquals(VerificationResult.MISMATCH, retired.verify(token, "user-1", VerificationType.EMAIL).block());
+	}
+
+	@Test
+	void signedModeNeedsActiveKey() {
+		assertThrows(IllegalStateException.class, () -> tokens("missing", Map.of("old", OLD_KEY)));
+		assertThrows(IllegalStateException.class, () -> tokens("short", Map.of("short", Base64.getEncoder().encodeToString(new byte[16]))));
+	}
+
+	private static SignedVerificationTokens tokens(String activeKeyId, Map<String, String> keys) {
+		EmailVerificationProperties emailVerificationProperties = new EmailVerificationProperties();
+		emailVerificationProperties.setMode(EmailVerificationMode.SIGNED);
+		emailVerificationProperties.setActiveKeyId(activeKeyId);
+		emailVerificationProperties.setKeys(keys);
+		emailVerificationProperties.setSingleUse(false);
+
+		return new SignedVerificationTokens(null, null, new SecureRandomTokenGenerator(16), emailVerificationProperties);
+	}
+}